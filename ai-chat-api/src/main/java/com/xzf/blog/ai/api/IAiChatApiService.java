@@ -1,9 +1,11 @@
 package com.xzf.blog.ai.api;
 
 import com.xzf.blog.ai.api.vo.req.ChatHistoryReq;
+import com.xzf.blog.ai.api.vo.req.ChatHistoryScrollReq;
 import com.xzf.blog.ai.api.vo.req.ChatReq;
 import com.xzf.blog.ai.api.vo.req.RagasReq;
 import com.xzf.blog.ai.api.vo.resp.ChatHistoryRespVO;
+import com.xzf.blog.ai.api.vo.resp.ChatHistoryScrollRespVO;
 import com.xzf.blog.ai.api.vo.resp.RagasRespVO;
 import com.xzf.blog.framework.commons.response.PageResponse;
 import com.xzf.blog.framework.commons.response.Response;
@@ -28,6 +30,15 @@ public interface IAiChatApiService {
     @PostMapping("/chat/history/get")
     PageResponse<ChatHistoryRespVO> getHistoryChat(@RequestBody ChatHistoryReq req);
 
+    /**
+     * 游标分页查询对话历史，用于向上滚动加载，不返回总数
+     * @param req 首次查询不传 cursor，之后传上一页返回的 nextCursor
+     * @return
+     */
+    @PreAuthorize
+    @PostMapping("/chat/history/scroll")
+    Response<ChatHistoryScrollRespVO> scrollHistoryChat(@RequestBody ChatHistoryScrollReq req);
+
     /**
      * Ragas评测用
      * @param req
@@ -17,7 +17,7 @@ public interface IRAGApiService {
      * @return
      */
 //    @PostMapping("/rag/uploadFile")
-//    Response<String> uploadFile(@RequestParam("file") List<MultipartFile> files);
+//    Response<List<FileUploadRespVO>> uploadFile(@RequestParam("file") List<MultipartFile> files);
 //
 //    @PostMapping("/rag/uploadArticle")
 //    Response<String> uploadArticle(@RequestBody @Valid ArticleReq req);
@@ -0,0 +1,29 @@
+package com.xzf.blog.ai.api.vo.req;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 对话历史游标分页请求
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChatHistoryScrollReq {
+
+    /**
+     * 上一页返回的 nextCursor，为空时查询最新一页
+     */
+    private String cursor;
+
+    @Builder.Default
+    private Long size = 10L;
+
+    @NotBlank(message = "对话唯一键不能为空")
+    private String conversationKey;
+
+}
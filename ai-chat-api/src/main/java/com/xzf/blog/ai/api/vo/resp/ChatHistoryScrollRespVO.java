@@ -0,0 +1,28 @@
+package com.xzf.blog.ai.api.vo.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 对话历史游标分页结果，消息按时间倒序
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChatHistoryScrollRespVO {
+
+    private List<ChatHistoryRespVO> records;
+
+    /**
+     * 查询下一页（更早的消息）时携带的游标，没有更早的消息时为空
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+
+}
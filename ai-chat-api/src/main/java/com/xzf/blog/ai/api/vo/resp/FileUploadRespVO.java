@@ -0,0 +1,30 @@
+package com.xzf.blog.ai.api.vo.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个文件的知识库上传结果
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileUploadRespVO {
+
+    private String fileName;
+
+    private boolean success;
+
+    /**
+     * 存入向量库的片段数
+     */
+    private int segmentCount;
+
+    private long costMillis;
+
+    private String errorMessage;
+
+}
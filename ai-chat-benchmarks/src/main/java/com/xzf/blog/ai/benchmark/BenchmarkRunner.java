@@ -0,0 +1,35 @@
+package com.xzf.blog.ai.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口，支持全部 JMH 命令行参数
+ * 未指定时默认开启 gc profiler（分配速率），结果以 JSON 写入 target/jmh-result.json，便于不同构建间对比
+ * <p>
+ * mvn -pl ai-chat-benchmarks -am package -DskipTests
+ * cd ai-chat-benchmarks && java -jar target/benchmarks.jar RowUtilBenchmark -p size=1MB
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT);
+        }
+        new Runner(builder.build()).run();
+    }
+}
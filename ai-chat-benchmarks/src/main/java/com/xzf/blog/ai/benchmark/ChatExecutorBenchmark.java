@@ -0,0 +1,130 @@
+package com.xzf.blog.ai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * system.chat.execution.mode 两种执行方式对比
+ * 模拟 conversations 个同时到达的对话，每个对话的流水线并发执行轮次校验、历史查询、检索三个阻塞阶段后汇总，
+ * 测量全部对话完成流水线的耗时。
+ * platform：流水线在请求线程（Tomcat 默认 200 线程）执行，阶段任务提交到与 chatExecutor 配置一致的线程池，
+ * 线程池已满时阶段被拒绝并降级，返回值为未降级的对话数；
+ * virtual：流水线和阶段任务都在虚拟线程中执行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ChatExecutorBenchmark {
+
+    private static final int REQUEST_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"100", "1000", "5000"})
+    private int conversations;
+
+    /**
+     * 单个阶段的阻塞耗时（毫秒），模拟 Redis、MySQL、向量模型和 Milvus 调用
+     */
+    @Param({"20"})
+    private long stageLatencyMillis;
+
+    private AsyncTaskExecutor pipelineExecutor;
+
+    private AsyncTaskExecutor stageExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("virtual".equals(mode)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ChatVirtual-");
+            executor.setVirtualThreads(true);
+            pipelineExecutor = executor;
+            stageExecutor = executor;
+        } else {
+            pipelineExecutor = pool(REQUEST_THREADS, REQUEST_THREADS, Integer.MAX_VALUE, "Request-");
+            stageExecutor = pool(10, 50, 200, "ChatExecutor-");
+        }
+    }
+
+    @Benchmark
+    public int pipelines() {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(conversations);
+        for (int i = 0; i < conversations; i++) {
+            futures.add(CompletableFuture.supplyAsync(this::pipeline, pipelineExecutor));
+        }
+        int completed = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            completed += future.join();
+        }
+        return completed;
+    }
+
+    private int pipeline() {
+        CompletableFuture<Integer> round = stage();
+        CompletableFuture<Integer> history = stage();
+        CompletableFuture<Integer> retrieval = stage();
+        return round.join() & history.join() & retrieval.join();
+    }
+
+    private CompletableFuture<Integer> stage() {
+        try {
+            return CompletableFuture.supplyAsync(this::blockingStage, stageExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(0);
+        }
+    }
+
+    private int blockingStage() {
+        try {
+            Thread.sleep(stageLatencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 1;
+    }
+
+    private static ThreadPoolTaskExecutor pool(int core, int max, int queueCapacity, String prefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(core);
+        executor.setMaxPoolSize(max);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(prefix);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (AsyncTaskExecutor executor : List.of(pipelineExecutor, stageExecutor)) {
+            if (executor instanceof ThreadPoolTaskExecutor pool) {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.xzf.blog.ai.benchmark;
+
+import com.xzf.blog.ai.util.RowUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RowUtil 各切分路径在不同语言、大小、模式下的吞吐与分配
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class RowUtilBenchmark {
+
+    @Param({"zh", "en"})
+    private String language;
+
+    @Param({"1KB", "16KB", "256KB", "1MB", "5MB"})
+    private String size;
+
+    @Param({"INCLUDE_EMPTY_LINES", "REMOVE_EMPTY_LINES", "TRIM_EMPTY_LINES", "REMOVE_BLANK_LINES"})
+    private RowUtil.SplitMode mode;
+
+    private String article;
+
+    @Setup
+    public void setUp() {
+        article = ArticleCorpus.generate(language, ArticleCorpus.parseSize(size));
+    }
+
+    @Benchmark
+    public String[] split() {
+        return RowUtil.split(article, mode);
+    }
+
+    @Benchmark
+    public List<String> splitToList() {
+        return RowUtil.splitToList(article, mode);
+    }
+
+    @Benchmark
+    public void splitToStream(Blackhole blackhole) {
+        RowUtil.splitToStream(article, mode).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public List<String> splitLargeText() {
+        return RowUtil.splitLargeText(article, mode);
+    }
+}
@@ -0,0 +1,74 @@
+package com.xzf.blog.ai.benchmark;
+
+import com.xzf.blog.ai.strategy.RowSplitStrategy;
+import com.xzf.blog.ai.strategy.SentenceWindowSplitStrategy;
+import com.xzf.blog.ai.strategy.SlidingWindowSplitStrategy;
+import com.xzf.blog.ai.strategy.SplitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * article.split.strategy 可选的切分策略对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class SplitStrategyBenchmark {
+
+    @Param({"zh", "en"})
+    private String language;
+
+    @Param({"1KB", "16KB", "256KB", "1MB", "5MB"})
+    private String size;
+
+    private String article;
+
+    private final SplitStrategy row = new RowSplitStrategy();
+
+    private final SplitStrategy slidingWindow = new SlidingWindowSplitStrategy();
+
+    private final SplitStrategy sentenceWindow = new SentenceWindowSplitStrategy();
+
+    @Setup
+    public void setUp() {
+        article = ArticleCorpus.generate(language, ArticleCorpus.parseSize(size));
+    }
+
+    @Benchmark
+    public String[] row() {
+        return row.split(article);
+    }
+
+    @Benchmark
+    public String[] slidingWindow() {
+        return slidingWindow.split(article);
+    }
+
+    @Benchmark
+    public String[] sentenceWindow() {
+        return sentenceWindow.split(article);
+    }
+
+    /**
+     * 惰性消费窗口，不保留全部片段
+     */
+    @Benchmark
+    public void sentenceWindowStream(Blackhole blackhole) {
+        sentenceWindow.splitToStream(article).forEach(blackhole::consume);
+    }
+}
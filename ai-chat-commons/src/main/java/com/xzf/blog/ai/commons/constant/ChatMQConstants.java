@@ -0,0 +1,9 @@
+package com.xzf.blog.ai.commons.constant;
+
+public interface ChatMQConstants {
+
+    /**
+     * 文章片段写入或删除完成，消息体为文章id，各实例据此失效本地片段向量缓存
+     */
+    String TOPIC_ARTICLE_VECTOR_CHANGED = "AiArticleVectorChangedTopic";
+}
@@ -4,7 +4,46 @@ public interface RedisConstants {
 
     String CHAT_CONVERSATION_KEY = "chat:conversation:key:";
 
+    String CHAT_ROUND_KEY = "chat:round:key:";
+
+    String CHAT_SUMMARY_KEY = "chat:summary:key:";
+
+    String CHAT_SUMMARY_LOCK_KEY = "chat:summary:lock:";
+
+    String EMBEDDING_QUERY_KEY = "rag:embedding:query:";
+
+    String SEMANTIC_ANSWER_KEY = "rag:answer:semantic:";
+
+    String ARTICLE_ABSTRACT_KEY = "abstract:article:";
+
     public static String getChatConversationKey(Long userId, String conversationKey) {
         return CHAT_CONVERSATION_KEY + userId + "_" + conversationKey;
     }
+
+    public static String getChatRoundKey(Long userId, String conversationKey) {
+        return CHAT_ROUND_KEY + userId + "_" + conversationKey;
+    }
+
+    public static String getChatSummaryKey(Long userId, String conversationKey) {
+        return CHAT_SUMMARY_KEY + userId + "_" + conversationKey;
+    }
+
+    public static String getChatSummaryLockKey(Long userId, String conversationKey) {
+        return CHAT_SUMMARY_LOCK_KEY + userId + "_" + conversationKey;
+    }
+
+    public static String getEmbeddingQueryKey(String modelName, int dimension, String queryHash) {
+        return EMBEDDING_QUERY_KEY + modelName + ":" + dimension + ":" + queryHash;
+    }
+
+    /**
+     * 语义答案缓存按文章隔离，未指定文章时使用全局范围
+     */
+    public static String getSemanticAnswerKey(Long articleId) {
+        return SEMANTIC_ANSWER_KEY + (articleId == null ? "global" : articleId);
+    }
+
+    public static String getArticleAbstractKey(Long articleId) {
+        return ARTICLE_ABSTRACT_KEY + articleId;
+    }
 }
@@ -3,4 +3,5 @@ package com.xzf.blog.ai.commons.constant;
 public interface SplitStrategyConstants {
     String SLIDING_WINDOW = "slidingWindow";
     String ROW = "row";
+    String SENTENCE_WINDOW = "sentenceWindow";
 }
@@ -1,12 +1,14 @@
 package com.xzf.blog.ai.config;
 
-import dev.langchain4j.data.segment.TextSegment;
+import com.xzf.blog.ai.embedding.BatchingEmbeddingModel;
+import com.xzf.blog.ai.embedding.ZhipuAiBatchEmbeddingModel;
+import com.xzf.blog.ai.store.ArticleEmbeddingStore;
+import com.xzf.blog.ai.store.MilvusArticleEmbeddingStore;
 import dev.langchain4j.model.embedding.EmbeddingModel;
-import dev.langchain4j.model.zhipu.ZhipuAiEmbeddingModel;
-import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.milvus.MilvusEmbeddingStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.milvus.client.MilvusServiceClient;
 import io.milvus.common.clientenum.ConsistencyLevelEnum;
-import io.milvus.param.IndexType;
+import io.milvus.param.ConnectParam;
 import io.milvus.param.MetricType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,31 +28,46 @@ public class EmbeddingConfig {
     private EmbeddingStoreProperties embeddingStoreProperties;
 
     @Bean
-    public EmbeddingModel embeddingModel() {
-        return ZhipuAiEmbeddingModel.builder()
+    public EmbeddingModel embeddingModel(MeterRegistry meterRegistry) {
+        // embedAll 以数组形式一次请求多条文本，ZhipuAiEmbeddingModel 会对每条文本单独请求
+        EmbeddingModel embeddingModel = ZhipuAiBatchEmbeddingModel.builder()
                 .baseUrl(embeddingModelProperties.getBaseUrl())
                 .apiKey(embeddingModelProperties.getApiKey())
                 .model(embeddingModelProperties.getModelName())
+                .dimensions(embeddingModelProperties.getDimension())
                 .connectTimeout(Duration.ofSeconds(20))
-                .callTimeout(Duration.ofSeconds(20))
-                .writeTimeout(Duration.ofSeconds(30))
-                .readTimeout(Duration.ofSeconds(20))
+                .timeout(Duration.ofSeconds(30))
                 .maxRetries(3)
                 .build();
+        EmbeddingModelProperties.Batching batching = embeddingModelProperties.getBatching();
+        if (!batching.isEnabled()) {
+            return embeddingModel;
+        }
+        // 合并并发的单条查询向量请求，容器关闭时自动调用 close
+        BatchingEmbeddingModel batchingModel = new BatchingEmbeddingModel(embeddingModel, batching.getMaxBatchSize(),
+                batching.getWindowMillis(), batching.getMaxConcurrentBatches(), batching.getTimeoutMillis());
+        batchingModel.bindTo(meterRegistry);
+        return batchingModel;
     }
 
 
+    @Bean(destroyMethod = "close")
+    public MilvusServiceClient milvusServiceClient() {
+        return new MilvusServiceClient(ConnectParam.newBuilder()
+                .withHost(embeddingStoreProperties.getHost())                    // Host for Milvus instance
+                .withPort(embeddingStoreProperties.getPort())                    // Port for Milvus instance
+                .withAuthorization(embeddingStoreProperties.getUsername(), embeddingStoreProperties.getPassword())
+                .build());
+    }
+
     @Bean
-    public EmbeddingStore<TextSegment> embeddingStore(EmbeddingModel embeddingModel) {
-        return MilvusEmbeddingStore.builder()
-                .host(embeddingStoreProperties.getHost())                         // Host for Milvus instance
-                .port(embeddingStoreProperties.getPort())                               // Port for Milvus instance
+    public ArticleEmbeddingStore embeddingStore(MilvusServiceClient milvusServiceClient, EmbeddingModel embeddingModel) {
+        return MilvusArticleEmbeddingStore.builder()
+                .milvusClient(milvusServiceClient)
                 .collectionName(embeddingStoreProperties.getCollectionName())      // Name of the collection
                 .dimension(embeddingModel.dimension())                           // 智谱 embedding-3 模型输出维度为 2048
-                .indexType(IndexType.FLAT)                 // Index type
+                .annIndex(embeddingStoreProperties.getIndex())   // Index type and build/search params
                 .metricType(MetricType.COSINE)             // Metric type
-                .username(embeddingStoreProperties.getUsername())                      // Username for Milvus
-                .password(embeddingStoreProperties.getPassword())                      // Password for Milvus
                 .consistencyLevel(ConsistencyLevelEnum.EVENTUALLY)  // Consistency level
                 .autoFlushOnInsert(true)                   // Auto flush after insert
                 .build();
@@ -1,7 +1,10 @@
 package com.xzf.blog.ai.config;
 
+import com.xzf.blog.ai.executor.ContextPropagatingTaskDecorator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
@@ -23,6 +26,8 @@ public class ThreadPoolConfig {
         executor.setKeepAliveSeconds(30);
         // 线程名前缀
         executor.setThreadNamePrefix("UserExecutor-");
+        // 传递登录用户和 MDC
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
 
         // 拒绝策略：由调用线程处理（一般为主线程）
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
@@ -35,4 +40,106 @@ public class ThreadPoolConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 对话流水线执行器
+     * platform 模式使用独立线程池，队列满时拒绝任务而不是由调用线程执行，调用方据此降级，超时控制不会被同步执行绕过；
+     * virtual 模式每个任务一个虚拟线程，阻塞在 Redis、MySQL、HTTP 调用上时不占用平台线程
+     */
+    @Bean(name = "chatExecutor")
+    public AsyncTaskExecutor chatExecutor(ChatModelProperties chatModelProperties) {
+        ChatModelProperties.Execution execution = chatModelProperties.getExecution();
+        if (execution.getMode() != ChatModelProperties.Execution.Mode.VIRTUAL) {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(execution.getCorePoolSize());
+            executor.setMaxPoolSize(execution.getMaxPoolSize());
+            executor.setQueueCapacity(execution.getQueueCapacity());
+            executor.setKeepAliveSeconds(30);
+            executor.setThreadNamePrefix("ChatExecutor-");
+            executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+            executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+            executor.setWaitForTasksToCompleteOnShutdown(true);
+            executor.setAwaitTerminationSeconds(60);
+            executor.initialize();
+            return executor;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ChatVirtual-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        if (execution.getVirtualConcurrencyLimit() > 0) {
+            executor.setConcurrencyLimit(execution.getVirtualConcurrencyLimit());
+        }
+        // 关闭时等待进行中的对话结束
+        executor.setTaskTerminationTimeout(60_000);
+        return executor;
+    }
+
+    /**
+     * 向量检索执行器
+     * 检索阶段本身运行在 chatExecutor 中，向量检索单独使用执行器，避免同一线程池内的任务互相等待；
+     * 执行方式与 chatExecutor 一致：platform 模式队列满时直接拒绝，检索降级为关键词检索；virtual 模式每个检索一个虚拟线程
+     */
+    @Bean(name = "retrievalExecutor")
+    public AsyncTaskExecutor retrievalExecutor(ChatModelProperties chatModelProperties, RetrievalProperties retrievalProperties) {
+        RetrievalProperties.Execution execution = retrievalProperties.getExecution();
+        if (chatModelProperties.getExecution().getMode() != ChatModelProperties.Execution.Mode.VIRTUAL) {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(execution.getCorePoolSize());
+            executor.setMaxPoolSize(execution.getMaxPoolSize());
+            executor.setQueueCapacity(execution.getQueueCapacity());
+            executor.setKeepAliveSeconds(30);
+            executor.setThreadNamePrefix("RetrievalExecutor-");
+            executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+            executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+            executor.setWaitForTasksToCompleteOnShutdown(true);
+            executor.setAwaitTerminationSeconds(60);
+            executor.initialize();
+            return executor;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("RetrievalVirtual-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        if (execution.getVirtualConcurrencyLimit() > 0) {
+            executor.setConcurrencyLimit(execution.getVirtualConcurrencyLimit());
+        }
+        executor.setTaskTerminationTimeout(60_000);
+        return executor;
+    }
+
+    /**
+     * 文件入库线程池，按 CPU 核数并行解析、切分
+     */
+    @Bean(name = "ingestExecutor")
+    public Executor ingestExecutor() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(processors);
+        executor.setMaxPoolSize(processors);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("IngestExecutor-");
+        // 队列满时由调用线程处理，形成背压
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 文件解析线程池，ParsingReader 在其中解析文档并通过管道输出文本
+     * 每个入库任务阻塞等待一个解析线程，线程数比 ingestExecutor 多一个，覆盖调用线程执行的入库任务
+     */
+    @Bean(name = "parseExecutor")
+    public Executor parseExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors() + 1;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("ParseExecutor-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+}
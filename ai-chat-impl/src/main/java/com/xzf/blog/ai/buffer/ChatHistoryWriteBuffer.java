@@ -0,0 +1,362 @@
+package com.xzf.blog.ai.buffer;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.xzf.blog.ai.commons.enums.ChatType;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.manager.ChatHistoryManager;
+import com.xzf.blog.ai.model.ChatHistoryDO;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * 对话记录异步批量写入
+ * 完成的对话先进入有界队列，由后台线程按条数或时间攒批后 saveBatch；
+ * 队列满时调用线程同步写库形成背压，写库失败的批次落盘，数据库恢复后重放
+ */
+@Slf4j
+@Component
+public class ChatHistoryWriteBuffer {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    @Resource
+    private ChatHistoryManager chatHistoryManager;
+
+    @Resource
+    private ChatModelProperties chatModelProperties;
+
+    private BlockingQueue<ChatHistoryDO> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private final LongAdder flushBatchCount = new LongAdder();
+
+    private final LongAdder flushRowCount = new LongAdder();
+
+    private final LongAdder syncWriteCount = new LongAdder();
+
+    private final LongAdder spoolRowCount = new LongAdder();
+
+    /**
+     * 已从队列取出、正在写库的批次，写入完成或落盘后清空
+     * 从队列取出与赋值、写库提交与清空都在 pendingLock 中完成，持有该锁时记录要么在队列或本批次中，要么已落库
+     */
+    private volatile List<ChatHistoryDO> flushing = List.of();
+
+    private final Object pendingLock = new Object();
+
+    /**
+     * 写入线程在此等待新记录入队
+     */
+    private final Object arrival = new Object();
+
+    public ChatHistoryWriteBuffer() {
+    }
+
+    ChatHistoryWriteBuffer(ChatHistoryManager chatHistoryManager, ChatModelProperties chatModelProperties) {
+        this.chatHistoryManager = chatHistoryManager;
+        this.chatModelProperties = chatModelProperties;
+    }
+
+    @PostConstruct
+    public void init() {
+        ChatModelProperties.HistoryWrite config = chatModelProperties.getHistoryWrite();
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (config.getSpoolDir() == null || !Path.of(config.getSpoolDir()).isAbsolute()) {
+            throw new IllegalStateException("开启对话记录异步写入时 system.chat.history-write.spool-dir 必须配置为绝对路径");
+        }
+        queue = new ArrayBlockingQueue<>(config.getCapacity());
+        running = true;
+        writer = new Thread(this::writeLoop, "chat-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 写入一轮对话记录
+     * 入队前按顺序分配 id，未设置创建时间的记录取入队时间；历史查询按 id 排序，与对话顺序一致
+     */
+    public void add(List<ChatHistoryDO> records) {
+        LocalDateTime now = LocalDateTime.now();
+        for (ChatHistoryDO record : records) {
+            if (record.getId() == null) {
+                record.setId(IdWorker.getId());
+            }
+            if (record.getCreateTime() == null) {
+                record.setCreateTime(now);
+            }
+        }
+        if (queue == null || !running) {
+            saveQuietly(records);
+            return;
+        }
+
+        long offerTimeoutMillis = chatModelProperties.getHistoryWrite().getOfferTimeoutMillis();
+        for (int i = 0; i < records.size(); i++) {
+            boolean offered;
+            try {
+                offered = queue.offer(records.get(i), offerTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                offered = false;
+            }
+            if (!offered) {
+                // 队列已满，剩余记录由调用线程同步写入
+                log.warn("对话记录写入队列已满，同步写库, 剩余条数: {}", records.size() - i);
+                syncWriteCount.add(records.size() - i);
+                saveQuietly(records.subList(i, records.size()));
+                break;
+            }
+        }
+        synchronized (arrival) {
+            arrival.notifyAll();
+        }
+    }
+
+    /**
+     * 调用线程同步写库，失败时与写入线程一样落盘，不向调用方抛出异常
+     */
+    private void saveQuietly(List<ChatHistoryDO> records) {
+        try {
+            chatHistoryManager.saveBatch(records);
+        } catch (Exception e) {
+            log.error("对话记录同步写入失败，落盘待重放, 条数: {}", records.size(), e);
+            spool(records);
+        }
+    }
+
+    /**
+     * 已落库的轮数加上本机尚未落库的用户提问数
+     * 在 pendingLock 中查询数据库，写入线程的取出与提交不会落在两次读取之间，同一条记录不会漏算或重复计算
+     *
+     * @param persistedRounds 查询数据库中的轮数
+     */
+    public long countRounds(Long userId, String conversationKey, LongSupplier persistedRounds) {
+        synchronized (pendingLock) {
+            return persistedRounds.getAsLong() + pendingRounds(userId, conversationKey);
+        }
+    }
+
+    /**
+     * 本机队列中及正在写库的批次里该会话尚未落库的用户提问数
+     * 不加锁，只是快照；与数据库轮数相加时使用 {@link #countRounds}
+     */
+    public long pendingRounds(Long userId, String conversationKey) {
+        if (queue == null) {
+            return 0;
+        }
+        return Stream.concat(queue.stream(), flushing.stream())
+                .filter(record -> record.getType() == ChatType.USER_MESSAGE
+                        && Objects.equals(record.getAccountId(), userId)
+                        && Objects.equals(record.getConversationKey(), conversationKey))
+                .count();
+    }
+
+    private void writeLoop() {
+        ChatModelProperties.HistoryWrite config = chatModelProperties.getHistoryWrite();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMillis());
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!awaitQueued(1, intervalNanos)) {
+                    // 空闲时重放落盘的记录
+                    replaySpool();
+                    continue;
+                }
+                // 攒满一批或等到间隔结束
+                awaitQueued(config.getBatchSize(), intervalNanos);
+                flush(takeBatch(config.getBatchSize()));
+            } catch (InterruptedException e) {
+                // 关闭时被中断，继续把队列中剩余的记录写完
+                running = false;
+            } catch (Exception e) {
+                log.error("对话记录批量写入线程异常", e);
+            }
+        }
+    }
+
+    /**
+     * 等待队列中至少有 size 条记录，超时或关闭时返回当前是否已满足
+     */
+    private boolean awaitQueued(int size, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        synchronized (arrival) {
+            while (queue.size() < size) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !running) {
+                    return queue.size() >= size;
+                }
+                TimeUnit.NANOSECONDS.timedWait(arrival, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 从队列取出一批记录，取出与记入 flushing 在同一临界区
+     */
+    private List<ChatHistoryDO> takeBatch(int batchSize) {
+        synchronized (pendingLock) {
+            List<ChatHistoryDO> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+            flushing = batch;
+            return batch;
+        }
+    }
+
+    private void flush(List<ChatHistoryDO> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            synchronized (pendingLock) {
+                // 提交与清空在同一临界区，重建计数时不会同时从数据库和 flushing 中数到这批记录
+                chatHistoryManager.saveBatch(batch);
+                flushing = List.of();
+            }
+            flushBatchCount.increment();
+            flushRowCount.add(batch.size());
+        } catch (Exception e) {
+            log.error("对话记录批量写入失败，落盘待重放, 条数: {}", batch.size(), e);
+            spool(batch);
+            synchronized (pendingLock) {
+                flushing = List.of();
+            }
+        }
+    }
+
+    private void spool(List<ChatHistoryDO> batch) {
+        if (chatModelProperties.getHistoryWrite().getSpoolDir() == null) {
+            // 未开启异步写入时可能没有配置落盘目录
+            log.error("对话记录落盘目录未配置, 内容: {}", JsonUtils.toJsonString(batch));
+            return;
+        }
+        Path file = Path.of(chatModelProperties.getHistoryWrite().getSpoolDir(),
+                "chat-history-" + System.currentTimeMillis() + "-" + IdWorker.getId() + ".jsonl");
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (ChatHistoryDO record : batch) {
+                    writer.write(JsonUtils.toJsonString(record));
+                    writer.newLine();
+                }
+            }
+            spoolRowCount.add(batch.size());
+        } catch (IOException e) {
+            // 落盘也失败时只能依赖日志排查
+            log.error("对话记录落盘失败, 内容: {}", JsonUtils.toJsonString(batch), e);
+        }
+    }
+
+    /**
+     * 逐个重放落盘文件，整批写入失败时逐条写入并跳过已存在的记录
+     */
+    private void replaySpool() {
+        Path dir = Path.of(chatModelProperties.getHistoryWrite().getSpoolDir());
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".jsonl")).sorted().toList();
+        } catch (IOException e) {
+            log.warn("读取对话记录落盘目录失败, dir: {}", dir, e);
+            return;
+        }
+        for (Path file : files) {
+            try {
+                List<ChatHistoryDO> records = Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                        .filter(line -> !line.isBlank())
+                        .map(line -> JsonUtils.parseObject(line, ChatHistoryDO.class))
+                        .toList();
+                try {
+                    chatHistoryManager.saveBatch(records);
+                } catch (DuplicateKeyException e) {
+                    for (ChatHistoryDO record : records) {
+                        try {
+                            chatHistoryManager.save(record);
+                        } catch (DuplicateKeyException ignored) {
+                            // 已写入过的记录
+                        }
+                    }
+                }
+                Files.delete(file);
+                log.info("重放落盘的对话记录, file: {}, 条数: {}", file, records.size());
+            } catch (Exception e) {
+                // 数据库仍不可用，下次空闲时再试
+                log.warn("重放落盘的对话记录失败, file: {}", file, e);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        synchronized (arrival) {
+            arrival.notifyAll();
+        }
+        writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        // 写入线程未能写完的记录直接落盘
+        List<ChatHistoryDO> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spool(remaining);
+        }
+        log.info("对话记录批量写入已关闭, 批次: {}, 条数: {}, 同步写入: {}, 落盘: {}",
+                getFlushBatchCount(), getFlushRowCount(), getSyncWriteCount(), getSpoolRowCount());
+    }
+
+    public long getFlushBatchCount() {
+        return flushBatchCount.sum();
+    }
+
+    public long getFlushRowCount() {
+        return flushRowCount.sum();
+    }
+
+    public long getSyncWriteCount() {
+        return syncWriteCount.sum();
+    }
+
+    public long getSpoolRowCount() {
+        return spoolRowCount.sum();
+    }
+
+    public int getQueueSize() {
+        return queue == null ? 0 : queue.size();
+    }
+}
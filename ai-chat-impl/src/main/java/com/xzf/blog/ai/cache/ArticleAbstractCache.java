@@ -0,0 +1,118 @@
+package com.xzf.blog.ai.cache;
+
+import com.xzf.blog.ai.commons.constant.RedisConstants;
+import com.xzf.blog.ai.config.AbstractModelProperties;
+import com.xzf.blog.ai.util.HashUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文章摘要去重缓存
+ * 按文章在 Redis hash 中保存 (正文哈希, 生成的摘要)，更新事件中正文未变化（只改了标题、标签等）时跳过摘要重新生成
+ */
+@Slf4j
+@Component
+public class ArticleAbstractCache {
+
+    private static final String CONTENT_HASH = "contentHash";
+
+    private static final String SUMMARY = "summary";
+
+    @Resource
+    private AbstractModelProperties abstractModelProperties;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final LongAdder checkCount = new LongAdder();
+
+    private final LongAdder skipCount = new LongAdder();
+
+    /**
+     * 检查次数按结果区分，skipped 即正文未变化而省去的大模型调用次数
+     */
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("ai.abstract.dedup", skipCount, LongAdder::doubleValue)
+                .description("文章更新时摘要去重检查次数")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.abstract.dedup", this, cache -> cache.getCheckCount() - cache.getSkipCount())
+                .description("文章更新时摘要去重检查次数")
+                .tag("result", "regenerated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 文章正文与上次生成摘要时相比是否未变化
+     */
+    public boolean isUnchanged(Long articleId, String content) {
+        if (!abstractModelProperties.getDedup().isEnabled()) {
+            return false;
+        }
+        checkCount.increment();
+        String key = RedisConstants.getArticleAbstractKey(articleId);
+        try {
+            Object storedHash = stringRedisTemplate.opsForHash().get(key, CONTENT_HASH);
+            if (contentHash(content).equals(storedHash)) {
+                skipCount.increment();
+                log.info("文章正文未变化，跳过摘要生成, articleId: {}", articleId);
+                return true;
+            }
+        } catch (Exception e) {
+            // 缓存不可用时按内容已变化处理，重新生成摘要
+            log.warn("查询文章摘要缓存失败, key: {}", key, e);
+        }
+        return false;
+    }
+
+    /**
+     * 摘要更新成功后记录本次正文哈希
+     */
+    public void put(Long articleId, String content, String summary) {
+        if (!abstractModelProperties.getDedup().isEnabled()) {
+            return;
+        }
+        String key = RedisConstants.getArticleAbstractKey(articleId);
+        try {
+            stringRedisTemplate.opsForHash().putAll(key, Map.of(CONTENT_HASH, contentHash(content), SUMMARY, summary));
+            stringRedisTemplate.expire(key, Duration.ofSeconds(abstractModelProperties.getDedup().getExpireSeconds()));
+        } catch (Exception e) {
+            log.warn("写入文章摘要缓存失败, key: {}", key, e);
+        }
+    }
+
+    /**
+     * 归一化正文（Unicode 规范化、合并空白）后计算 SHA-256，只有排版空白不同的正文视为相同
+     */
+    static String contentHash(String content) {
+        String normalized = content == null ? "" : Normalizer.normalize(content, Normalizer.Form.NFKC)
+                .replaceAll("\\s+", " ")
+                .trim();
+        return HashUtil.sha256Hex(normalized);
+    }
+
+    public long getCheckCount() {
+        return checkCount.sum();
+    }
+
+    /**
+     * 正文未变化而省去的大模型调用次数
+     */
+    public long getSkipCount() {
+        return skipCount.sum();
+    }
+}
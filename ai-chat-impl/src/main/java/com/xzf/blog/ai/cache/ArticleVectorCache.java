@@ -0,0 +1,237 @@
+package com.xzf.blog.ai.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.xzf.blog.ai.commons.constant.ChatMQConstants;
+import com.xzf.blog.ai.config.RetrievalProperties;
+import com.xzf.blog.ai.store.ArticleEmbeddingStore;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文章片段向量本地缓存
+ * 按文章缓存全部片段的归一化向量（连续的 float[]，每行一个片段），指定文章的检索在本地计算点积取 top-k，不再请求向量库；
+ * 首次检索时从向量库加载；片段写入或删除完成后由写入方广播失效消息，各实例收到后失效
+ */
+@Slf4j
+@Component
+public class ArticleVectorCache {
+
+    @Resource
+    private ArticleEmbeddingStore embeddingStore;
+
+    @Resource
+    private RetrievalProperties retrievalProperties;
+
+    @Resource
+    private RocketMQTemplate rocketMQTemplate;
+
+    private Cache<Long, ArticleVectors> cache;
+
+    /**
+     * 片段数超过上限的文章，只占一个条目，避免每次检索都重新加载
+     */
+    private static final ArticleVectors TOO_LARGE = new ArticleVectors(new String[0], new TextSegment[0], new float[0], 0);
+
+    @PostConstruct
+    public void init() {
+        RetrievalProperties.LocalVector config = retrievalProperties.getLocalVector();
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(config.getMaxMemoryMb() * 1024 * 1024)
+                .weigher((Long articleId, ArticleVectors vectors) -> vectors.weight())
+                .expireAfterWrite(config.getExpireSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 在文章的片段中检索
+     *
+     * @return 按相关性降序的片段；未启用、文章片段数超过上限或加载失败时返回 null，由调用方走向量库检索
+     */
+    public List<EmbeddingMatch<TextSegment>> search(Long articleId, Embedding queryEmbedding, int maxResults, double minScore) {
+        RetrievalProperties.LocalVector config = retrievalProperties.getLocalVector();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        ArticleVectors vectors;
+        try {
+            // 同一文章的并发加载只会查询一次向量库
+            vectors = cache.get(articleId, () -> load(articleId, config.getMaxSegmentsPerArticle()));
+        } catch (Exception e) {
+            log.warn("加载文章片段向量失败, articleId: {}", articleId, e);
+            return null;
+        }
+        if (vectors == TOO_LARGE) {
+            return null;
+        }
+        return vectors.search(queryEmbedding.vector(), maxResults, minScore);
+    }
+
+    public void invalidate(Long articleId) {
+        cache.invalidate(articleId);
+    }
+
+    public void invalidateAll(Collection<Long> articleIds) {
+        cache.invalidateAll(articleIds);
+    }
+
+    /**
+     * 片段写入或删除完成后调用：失效本实例缓存并广播给其他实例
+     * 广播失败时其他实例的旧片段由过期时间兜底
+     */
+    public void invalidateEverywhere(Collection<Long> articleIds) {
+        invalidateAll(articleIds);
+        if (!retrievalProperties.getLocalVector().isEnabled()) {
+            return;
+        }
+        for (Long articleId : articleIds) {
+            try {
+                rocketMQTemplate.syncSend(ChatMQConstants.TOPIC_ARTICLE_VECTOR_CHANGED, articleId);
+            } catch (Exception e) {
+                log.warn("广播文章片段向量缓存失效失败, articleId: {}", articleId, e);
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private ArticleVectors load(Long articleId, int maxSegments) {
+        long start = System.currentTimeMillis();
+        List<ArticleEmbeddingStore.StoredSegment> segments = embeddingStore.findSegmentsByArticleId(articleId);
+        if (segments.size() > maxSegments) {
+            log.info("文章片段数超过本地缓存上限, articleId: {}, 片段数: {}", articleId, segments.size());
+            return TOO_LARGE;
+        }
+        ArticleVectors vectors = ArticleVectors.of(segments);
+        log.info("加载文章片段向量, articleId: {}, 片段数: {}, 耗时: {}ms", articleId, segments.size(), System.currentTimeMillis() - start);
+        return vectors;
+    }
+
+    /**
+     * 一篇文章的片段向量，按行连续存放并预先归一化，余弦相似度即点积
+     */
+    static final class ArticleVectors {
+
+        private final String[] ids;
+
+        private final TextSegment[] segments;
+
+        private final float[] matrix;
+
+        private final int dimension;
+
+        ArticleVectors(String[] ids, TextSegment[] segments, float[] matrix, int dimension) {
+            this.ids = ids;
+            this.segments = segments;
+            this.matrix = matrix;
+            this.dimension = dimension;
+        }
+
+        static ArticleVectors of(List<ArticleEmbeddingStore.StoredSegment> stored) {
+            int dimension = stored.isEmpty() ? 0 : stored.get(0).vector().length;
+            String[] ids = new String[stored.size()];
+            TextSegment[] segments = new TextSegment[stored.size()];
+            float[] matrix = new float[stored.size() * dimension];
+            for (int i = 0; i < stored.size(); i++) {
+                ArticleEmbeddingStore.StoredSegment segment = stored.get(i);
+                if (segment.vector().length != dimension) {
+                    throw new IllegalStateException("片段向量维度不一致, id: " + segment.id());
+                }
+                ids[i] = segment.id();
+                segments[i] = segment.segment();
+                float norm = (float) Math.sqrt(dot(segment.vector(), 0, segment.vector()));
+                for (int j = 0; j < dimension; j++) {
+                    matrix[i * dimension + j] = norm == 0 ? 0 : segment.vector()[j] / norm;
+                }
+            }
+            return new ArticleVectors(ids, segments, matrix, dimension);
+        }
+
+        List<EmbeddingMatch<TextSegment>> search(float[] query, int maxResults, double minScore) {
+            if (ids.length == 0 || maxResults <= 0) {
+                return List.of();
+            }
+            if (query.length != dimension) {
+                throw new IllegalArgumentException("查询向量维度不一致: " + query.length + " != " + dimension);
+            }
+            float queryNorm = (float) Math.sqrt(dot(query, 0, query));
+            if (queryNorm == 0) {
+                return List.of();
+            }
+            // 片段数通常只有几十个，插入排序维护 top-k
+            int[] topRows = new int[Math.min(maxResults, ids.length)];
+            double[] topScores = new double[topRows.length];
+            int count = 0;
+            for (int row = 0; row < ids.length; row++) {
+                // 与向量库一致，余弦相似度 [-1,1] 映射为相关性分数 [0,1]
+                double score = RelevanceScore.fromCosineSimilarity(dot(matrix, row * dimension, query) / queryNorm);
+                if (score < minScore || (count == topRows.length && score <= topScores[count - 1])) {
+                    continue;
+                }
+                int position = count == topRows.length ? count - 1 : count++;
+                while (position > 0 && topScores[position - 1] < score) {
+                    topScores[position] = topScores[position - 1];
+                    topRows[position] = topRows[position - 1];
+                    position--;
+                }
+                topScores[position] = score;
+                topRows[position] = row;
+            }
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                matches.add(new EmbeddingMatch<>(topScores[i], ids[topRows[i]], null, segments[topRows[i]]));
+            }
+            return matches;
+        }
+
+        /**
+         * 缓存权重：向量及文本占用的大致字节数
+         */
+        int weight() {
+            long bytes = (long) matrix.length * Float.BYTES;
+            for (TextSegment segment : segments) {
+                bytes += (long) segment.text().length() * 2;
+            }
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(1, bytes));
+        }
+
+        /**
+         * 点积，四路独立累加打破循环依赖，便于 JIT 展开及向量化
+         */
+        private static float dot(float[] matrix, int offset, float[] vector) {
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int length = vector.length;
+            int j = 0;
+            for (; j + 3 < length; j += 4) {
+                s0 += matrix[offset + j] * vector[j];
+                s1 += matrix[offset + j + 1] * vector[j + 1];
+                s2 += matrix[offset + j + 2] * vector[j + 2];
+                s3 += matrix[offset + j + 3] * vector[j + 3];
+            }
+            for (; j < length; j++) {
+                s0 += matrix[offset + j] * vector[j];
+            }
+            return s0 + s1 + s2 + s3;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.xzf.blog.ai.cache;
+
+import com.xzf.blog.ai.commons.constant.RedisConstants;
+import com.xzf.blog.ai.manager.ChatHistoryManager;
+import com.xzf.blog.ai.model.ChatHistoryDO;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 会话历史窗口缓存
+ * 列表按时间正序存放最近若干条消息，每轮对话只追加本轮的一问一答，再裁剪到缓存大小；
+ * 对话读取其中最近的历史窗口，历史记录接口读取其中最新的一页
+ */
+@Slf4j
+@Component
+public class ChatHistoryCache {
+
+    /**
+     * KEYS[1] 列表 key；ARGV[1] 窗口大小，ARGV[2] 过期秒数，ARGV[3] 种子消息数（-1 表示没有种子），其后依次为种子消息和新消息
+     * 列表已存在时跳过种子只追加新消息；列表不存在且没有种子时不写入，等下次读取时从数据库重建
+     */
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>(
+            "local seedCount = tonumber(ARGV[3]) " +
+            "local start = 4 " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  if seedCount > 0 then start = 4 + seedCount end " +
+            "elseif seedCount < 0 then " +
+            "  return 0 " +
+            "end " +
+            "for i = start, #ARGV do redis.call('RPUSH', KEYS[1], ARGV[i]) end " +
+            "redis.call('LTRIM', KEYS[1], -tonumber(ARGV[1]), -1) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1", Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private ChatHistoryManager chatHistoryManager;
+
+    /**
+     * 历史窗口
+     *
+     * @param messages 最近的历史消息，按时间正序
+     * @param seed     缓存未命中时从数据库读取的消息，追加时作为种子写入；缓存命中时为 null
+     */
+    public record Window(List<ChatHistoryDO> messages, List<ChatHistoryDO> seed) {
+
+        public static Window empty() {
+            return new Window(new ArrayList<>(), null);
+        }
+
+        public boolean fromDb() {
+            return seed != null;
+        }
+
+        /**
+         * 确认是新会话（数据库中没有历史消息），降级返回的空窗口不算
+         */
+        public boolean isNewConversation() {
+            return seed != null && seed.isEmpty();
+        }
+    }
+
+    /**
+     * 缓存中最新的一页消息
+     *
+     * @param records 按时间倒序，与数据库分页查询一致
+     * @param total   会话消息总数，按轮次计数每轮两条估算，进行中的一轮也计入
+     */
+    public record Latest(List<ChatHistoryDO> records, long total) {
+    }
+
+    /**
+     * 查询最近 size 条消息，缓存未命中时从数据库读取最近 cacheSize 条作为种子，返回其中最近 size 条
+     */
+    public Window get(Long userId, String conversationKey, int size, int cacheSize) {
+        String redisKey = RedisConstants.getChatConversationKey(userId, conversationKey);
+        List<String> chatCache = stringRedisTemplate.opsForList().range(redisKey, -size, -1);
+        if (chatCache != null && !chatCache.isEmpty()) {
+            // 从缓存中获取历史对话记录
+            return new Window(parse(chatCache), null);
+        }
+        // 查询db中的历史对话记录
+        List<ChatHistoryDO> seed = chatHistoryManager.getHistory(userId, conversationKey, Math.max(size, cacheSize));
+        return new Window(seed.subList(Math.max(0, seed.size() - size), seed.size()), seed);
+    }
+
+    /**
+     * 从缓存读取最新的 size 条消息，缓存不能完整覆盖这一页时返回 null，由调用方查询数据库
+     */
+    public Latest latest(Long userId, String conversationKey, int size) {
+        String redisKey = RedisConstants.getChatConversationKey(userId, conversationKey);
+        try {
+            List<String> chatCache = stringRedisTemplate.opsForList().range(redisKey, -size, -1);
+            if (chatCache == null || chatCache.isEmpty()) {
+                return null;
+            }
+            String round = stringRedisTemplate.opsForValue().get(RedisConstants.getChatRoundKey(userId, conversationKey));
+            return cover(parse(chatCache), size, round == null ? null : Long.valueOf(round));
+        } catch (Exception e) {
+            log.warn("读取会话历史缓存失败, key: {}", redisKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 缓存条数达到 size，或轮次计数对应的全部消息都在缓存中时视为覆盖
+     * 轮次计数在对话开始时自增、消息在对话完成后追加，进行中的一轮会使计数多于缓存条数，此时不视为完整
+     *
+     * @param cached 缓存中最近的消息，按时间正序
+     * @param rounds 轮次计数，不存在时为 null
+     */
+    static Latest cover(List<ChatHistoryDO> cached, int size, Long rounds) {
+        if (rounds == null || cached.stream().anyMatch(message -> message.getId() == null)) {
+            // 无法计算总数，或缓存中有未分配 id 的旧数据
+            return null;
+        }
+        long total = Math.max(rounds * 2, cached.size());
+        if (cached.size() < size && total > cached.size()) {
+            return null;
+        }
+        List<ChatHistoryDO> records = new ArrayList<>(cached);
+        Collections.reverse(records);
+        return new Latest(records, total);
+    }
+
+    /**
+     * 追加本轮消息并裁剪到窗口大小，同时刷新过期时间
+     *
+     * @param window   本轮读取到的历史窗口，来自数据库时作为种子
+     * @param messages 本轮新增消息
+     */
+    public void append(Long userId, String conversationKey, Window window, List<ChatHistoryDO> messages, int size, long expireSeconds) {
+        String redisKey = RedisConstants.getChatConversationKey(userId, conversationKey);
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(size));
+        args.add(String.valueOf(expireSeconds));
+        if (window.fromDb()) {
+            args.add(String.valueOf(window.seed().size()));
+            window.seed().forEach(message -> args.add(JsonUtils.toJsonString(message)));
+        } else {
+            args.add("-1");
+        }
+        messages.forEach(message -> args.add(JsonUtils.toJsonString(message)));
+        try {
+            stringRedisTemplate.execute(APPEND_SCRIPT, List.of(redisKey), args.toArray());
+        } catch (Exception e) {
+            // 写缓存失败时删除，下次从数据库重建，避免窗口缺失消息
+            log.warn("追加会话历史缓存失败, key: {}", redisKey, e);
+            stringRedisTemplate.delete(redisKey);
+        }
+    }
+
+    private static List<ChatHistoryDO> parse(List<String> chatCache) {
+        return chatCache.stream().map(str -> JsonUtils.parseObject(str, ChatHistoryDO.class)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,100 @@
+package com.xzf.blog.ai.cache;
+
+import com.xzf.blog.ai.buffer.ChatHistoryWriteBuffer;
+import com.xzf.blog.ai.commons.constant.RedisConstants;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.manager.ChatHistoryManager;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 会话轮次计数器
+ * 轮次校验与自增在同一段 Lua 脚本中完成，缓存缺失时按 MySQL 中的用户提问数加上本机写入缓冲中尚未落库的提问数重建。
+ * 其他实例缓冲中的记录和落盘待重放的记录不计入，重建值可能偏少；计数每次占用都会续期，
+ * 只有会话闲置到过期或被淘汰后才会重建，此时缓冲中的记录通常早已写库
+ */
+@Slf4j
+@Component
+public class ChatRoundCounter {
+
+    /**
+     * ARGV[1] 轮次上限，ARGV[2] 过期秒数，ARGV[3] 可选，计数不存在时用于重建的轮次
+     * 返回 -1 表示计数不存在且未提供重建值，0 表示已达上限，1 表示占用成功
+     */
+    static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "local round = redis.call('GET', KEYS[1]) " +
+            "if not round then " +
+            "if not ARGV[3] then return -1 end " +
+            "round = ARGV[3] " +
+            "redis.call('SET', KEYS[1], round) " +
+            "end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "if tonumber(round) >= tonumber(ARGV[1]) then return 0 end " +
+            "redis.call('INCR', KEYS[1]) " +
+            "return 1", Long.class);
+
+    static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "local round = redis.call('GET', KEYS[1]) " +
+            "if round and tonumber(round) > 0 then return redis.call('DECR', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private ChatHistoryManager chatHistoryManager;
+
+    @Resource
+    private ChatHistoryWriteBuffer chatHistoryWriteBuffer;
+
+    @Resource
+    private ChatModelProperties chatModelProperties;
+
+    public ChatRoundCounter() {
+    }
+
+    ChatRoundCounter(StringRedisTemplate stringRedisTemplate, ChatHistoryManager chatHistoryManager,
+                     ChatHistoryWriteBuffer chatHistoryWriteBuffer, ChatModelProperties chatModelProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.chatHistoryManager = chatHistoryManager;
+        this.chatHistoryWriteBuffer = chatHistoryWriteBuffer;
+        this.chatModelProperties = chatModelProperties;
+    }
+
+    /**
+     * 占用一轮对话，已完成轮次达到 maxRound 时返回 false
+     * 在对话开始时占用而不是结束时自增，避免并发请求同时通过校验；对话失败时调用 {@link #release} 归还
+     */
+    public boolean tryAcquire(Long userId, String conversationKey, int maxRound) {
+        String key = RedisConstants.getChatRoundKey(userId, conversationKey);
+        List<String> keys = List.of(key);
+        String expireSeconds = String.valueOf(chatModelProperties.getExpireSeconds());
+
+        Long result = stringRedisTemplate.execute(ACQUIRE_SCRIPT, keys, String.valueOf(maxRound), expireSeconds);
+        if (result != null && result == -1) {
+            // 计数缺失，按已落库和本机待写入的提问数重建后重试；脚本只在计数仍不存在时写入，并发重建时以先到的为准
+            long round = chatHistoryWriteBuffer.countRounds(userId, conversationKey, () -> chatHistoryManager.getRound(userId, conversationKey));
+            log.info("重建会话轮次计数, key: {}, round: {}", key, round);
+            result = stringRedisTemplate.execute(ACQUIRE_SCRIPT, keys, String.valueOf(maxRound), expireSeconds, String.valueOf(round));
+        }
+        return result == null || result != 0;
+    }
+
+    /**
+     * 归还占用的轮次
+     */
+    public void release(Long userId, String conversationKey) {
+        String key = RedisConstants.getChatRoundKey(userId, conversationKey);
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(key));
+        } catch (Exception e) {
+            log.warn("归还会话轮次失败, key: {}", key, e);
+        }
+    }
+}
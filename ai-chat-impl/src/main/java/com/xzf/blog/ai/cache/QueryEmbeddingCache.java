@@ -0,0 +1,165 @@
+package com.xzf.blog.ai.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.xzf.blog.ai.commons.constant.RedisConstants;
+import com.xzf.blog.ai.config.EmbeddingModelProperties;
+import com.xzf.blog.ai.util.HashUtil;
+import com.xzf.blog.ai.util.VectorUtil;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 查询向量两级缓存：本地 LRU + Redis
+ * key 由 (模型名, 维度, 归一化后查询的 SHA-256) 组成，Redis 中存放小端序打包的 float 字节
+ */
+@Slf4j
+@Component
+public class QueryEmbeddingCache {
+
+    @Resource
+    private EmbeddingModel embeddingModel;
+
+    @Resource
+    private EmbeddingModelProperties embeddingModelProperties;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Embedding> localCache;
+
+    private final LongAdder redisHitCount = new LongAdder();
+
+    private final LongAdder redisMissCount = new LongAdder();
+
+    private final LongAdder modelLoadCount = new LongAdder();
+
+    private final LongAdder modelLoadNanos = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        EmbeddingModelProperties.QueryCache config = embeddingModelProperties.getQueryCache();
+        localCache = CacheBuilder.newBuilder()
+                .maximumSize(config.getLocalMaxSize())
+                .expireAfterWrite(config.getLocalExpireSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        bindMetrics();
+    }
+
+    /**
+     * 本地缓存命中/未命中/淘汰、Redis 命中/未命中及向量模型调用次数与耗时，
+     * 模型平均耗时乘以两级缓存命中次数即为节省的 embedding 耗时
+     */
+    private void bindMetrics() {
+        GuavaCacheMetrics.monitor(meterRegistry, localCache, "queryEmbeddingLocal");
+        FunctionCounter.builder("ai.embedding.query.cache.redis", redisHitCount, LongAdder::doubleValue)
+                .description("查询向量 Redis 缓存访问次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.embedding.query.cache.redis", redisMissCount, LongAdder::doubleValue)
+                .description("查询向量 Redis 缓存访问次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionTimer.builder("ai.embedding.query.model", this,
+                        cache -> cache.modelLoadCount.sum(), cache -> cache.modelLoadNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("查询向量缓存未命中时调用向量模型的次数与耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取查询向量，依次查询本地缓存、Redis，均未命中时调用向量模型
+     *
+     * @param query 查询文本
+     * @return 查询向量
+     */
+    public Embedding embed(String query) {
+        if (!embeddingModelProperties.getQueryCache().isEnabled()) {
+            return loadFromModel(query);
+        }
+        String key = RedisConstants.getEmbeddingQueryKey(embeddingModelProperties.getModelName(),
+                embeddingModelProperties.getDimension(), HashUtil.sha256Hex(normalizeQuery(query)));
+        try {
+            // 同一 key 的并发加载只会触发一次远程调用
+            return localCache.get(key, () -> loadFromRedisOrModel(key, query));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("查询向量生成失败", e.getCause());
+        }
+    }
+
+    private Embedding loadFromRedisOrModel(String key, String query) {
+        EmbeddingModelProperties.QueryCache config = embeddingModelProperties.getQueryCache();
+        if (!config.isRedisEnabled()) {
+            return loadFromModel(query);
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] value = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(keyBytes));
+            float[] vector = VectorUtil.fromBytes(value);
+            if (vector != null && vector.length == embeddingModelProperties.getDimension()) {
+                redisHitCount.increment();
+                return Embedding.from(vector);
+            }
+        } catch (Exception e) {
+            // 缓存不可用时不影响对话，直接走模型
+            log.warn("读取查询向量缓存失败, key: {}", key, e);
+        }
+        redisMissCount.increment();
+
+        Embedding embedding = loadFromModel(query);
+        try {
+            byte[] value = VectorUtil.toBytes(embedding.vector());
+            stringRedisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().setEx(keyBytes, config.getRedisExpireSeconds(), value));
+        } catch (Exception e) {
+            log.warn("写入查询向量缓存失败, key: {}", key, e);
+        }
+        return embedding;
+    }
+
+    private Embedding loadFromModel(String query) {
+        long start = System.nanoTime();
+        Embedding embedding = embeddingModel.embed(query).content();
+        modelLoadNanos.add(System.nanoTime() - start);
+        modelLoadCount.increment();
+        return embedding;
+    }
+
+    /**
+     * 查询归一化：NFKC（全角转半角）、合并空白、转小写、去掉末尾标点
+     */
+    public static String normalizeQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC)
+                .replaceAll("\\s+", " ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+        return normalized.replaceAll("[\\s?!.。]+$", "");
+    }
+}
@@ -0,0 +1,273 @@
+package com.xzf.blog.ai.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.xzf.blog.ai.commons.constant.RedisConstants;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.util.HashUtil;
+import com.xzf.blog.ai.util.VectorUtil;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 语义答案缓存
+ * 按文章维度在 Redis hash 中保存 (问题, 问题向量, 答案, 检索片段)，
+ * 新问题与已有问题的余弦相似度达到阈值时直接复用答案，省去一次大模型生成
+ */
+@Slf4j
+@Component
+public class SemanticAnswerCache {
+
+    @Resource
+    private QueryEmbeddingCache queryEmbeddingCache;
+
+    @Resource
+    private ChatModelProperties chatModelProperties;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 每个范围的条目解析后缓存在本地，避免每次查询都拉取全部向量
+     */
+    private Cache<String, List<Entry>> localCache;
+
+    private final LongAdder lookupCount = new LongAdder();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder tokensSaved = new LongAdder();
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Entry {
+
+        private String question;
+
+        /**
+         * 小端序打包的问题向量
+         */
+        private byte[] vector;
+
+        private String answer;
+
+        private List<String> contexts;
+
+        /**
+         * 生成该答案消耗的 token 数
+         */
+        private int tokens;
+
+        /**
+         * 写入时间戳（毫秒），范围已满时优先淘汰最早写入的条目
+         */
+        private long createTime;
+    }
+
+    @PostConstruct
+    public void init() {
+        localCache = CacheBuilder.newBuilder()
+                .maximumWeight(chatModelProperties.getSemanticCache().getLocalMaxMemoryMb() * 1024 * 1024)
+                .weigher((String key, List<Entry> entries) -> weight(entries))
+                .expireAfterWrite(chatModelProperties.getSemanticCache().getLocalExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+        bindMetrics();
+    }
+
+    /**
+     * 查询次数、命中次数、命中率及命中后省去的大模型 token 数
+     */
+    private void bindMetrics() {
+        FunctionCounter.builder("ai.semantic.cache.lookups", lookupCount, LongAdder::doubleValue)
+                .description("语义答案缓存查询次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.semantic.cache.hits", hitCount, LongAdder::doubleValue)
+                .description("语义答案缓存命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.semantic.cache.tokens.saved", tokensSaved, LongAdder::doubleValue)
+                .description("命中语义答案缓存省去的大模型 token 数")
+                .register(meterRegistry);
+        Gauge.builder("ai.semantic.cache.hit.rate", this, cache -> {
+                    long lookups = cache.lookupCount.sum();
+                    return lookups == 0 ? 0 : (double) cache.hitCount.sum() / lookups;
+                })
+                .description("语义答案缓存命中率")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询语义相近问题的缓存答案
+     *
+     * @param articleId 文章id，为空时在全局范围内查询
+     * @param question  用户问题
+     * @return 命中的缓存条目，未命中返回 null
+     */
+    public Entry get(Long articleId, String question) {
+        ChatModelProperties.SemanticCache config = chatModelProperties.getSemanticCache();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        lookupCount.increment();
+        String key = RedisConstants.getSemanticAnswerKey(articleId);
+        try {
+            List<Entry> entries = localCache.get(key, () -> loadEntries(key));
+            if (entries.isEmpty()) {
+                return null;
+            }
+            // 与检索共用查询向量缓存，不会额外调用向量模型
+            float[] vector = queryEmbeddingCache.embed(question).vector();
+            Entry best = findBest(entries, vector, config.getThreshold());
+            if (best != null) {
+                log.info("语义答案缓存命中, 问题: {}, 缓存问题: {}", question, best.getQuestion());
+            }
+            return best;
+        } catch (Exception e) {
+            // 缓存不可用时不影响对话
+            log.warn("查询语义答案缓存失败, key: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 调用方实际回放了缓存答案时记录命中及省去的 token 数；查到但未使用的条目不计入
+     */
+    public void recordReplay(Entry entry) {
+        hitCount.increment();
+        tokensSaved.add(entry.getTokens());
+    }
+
+    /**
+     * 写入答案，范围内条目数达到上限时淘汰最早写入的条目
+     * 并发写入时条目数可能短暂超过上限，下次写入时一并淘汰
+     */
+    public void put(Long articleId, String question, String answer, List<String> contexts, int tokens) {
+        ChatModelProperties.SemanticCache config = chatModelProperties.getSemanticCache();
+        if (!config.isEnabled()) {
+            return;
+        }
+        String key = RedisConstants.getSemanticAnswerKey(articleId);
+        try {
+            String field = HashUtil.sha256Hex(QueryEmbeddingCache.normalizeQuery(question));
+            Long size = stringRedisTemplate.opsForHash().size(key);
+            if (size != null && size >= config.getMaxEntriesPerScope()
+                    && !stringRedisTemplate.opsForHash().hasKey(key, field)) {
+                List<String> evicted = evictionCandidates(loadEntriesByField(key), config.getMaxEntriesPerScope() - 1);
+                if (!evicted.isEmpty()) {
+                    stringRedisTemplate.opsForHash().delete(key, evicted.toArray());
+                    log.debug("语义答案缓存已满，淘汰最早写入的条目, key: {}, 条数: {}", key, evicted.size());
+                }
+            }
+            Entry entry = Entry.builder()
+                    .question(question)
+                    .vector(VectorUtil.toBytes(queryEmbeddingCache.embed(question).vector()))
+                    .answer(answer)
+                    .contexts(contexts)
+                    .tokens(tokens)
+                    .createTime(System.currentTimeMillis())
+                    .build();
+            stringRedisTemplate.opsForHash().put(key, field, JsonUtils.toJsonString(entry));
+            stringRedisTemplate.expire(key, Duration.ofSeconds(config.getExpireSeconds()));
+            localCache.invalidate(key);
+        } catch (Exception e) {
+            log.warn("写入语义答案缓存失败, key: {}", key, e);
+        }
+    }
+
+    /**
+     * 文章更新或删除后失效该文章及全局范围的缓存答案
+     */
+    public void invalidate(Long articleId) {
+        String articleKey = RedisConstants.getSemanticAnswerKey(articleId);
+        String globalKey = RedisConstants.getSemanticAnswerKey(null);
+        stringRedisTemplate.delete(List.of(articleKey, globalKey));
+        localCache.invalidateAll(List.of(articleKey, globalKey));
+    }
+
+    private List<Entry> loadEntries(String key) {
+        List<Object> values = stringRedisTemplate.opsForHash().values(key);
+        return values.stream().map(value -> JsonUtils.parseObject((String) value, Entry.class)).toList();
+    }
+
+    private Map<String, Entry> loadEntriesByField(String key) {
+        Map<String, Entry> entries = new HashMap<>();
+        stringRedisTemplate.opsForHash().entries(key)
+                .forEach((field, value) -> entries.put((String) field, JsonUtils.parseObject((String) value, Entry.class)));
+        return entries;
+    }
+
+    /**
+     * 按写入时间从早到晚选出需要淘汰的字段，使剩余条目数不超过 keep
+     */
+    static List<String> evictionCandidates(Map<String, Entry> entries, int keep) {
+        int overflow = entries.size() - Math.max(keep, 0);
+        if (overflow <= 0) {
+            return List.of();
+        }
+        return entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().getCreateTime()))
+                .limit(overflow)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * 估算一个范围的条目占用的内存（字节）：打包的向量加上问题、答案和检索片段的字符
+     */
+    static int weight(List<Entry> entries) {
+        long bytes = 0;
+        for (Entry entry : entries) {
+            bytes += entry.getVector() == null ? 0 : entry.getVector().length;
+            bytes += (long) length(entry.getQuestion()) * 2 + (long) length(entry.getAnswer()) * 2;
+            if (entry.getContexts() != null) {
+                for (String context : entry.getContexts()) {
+                    bytes += (long) length(context) * 2;
+                }
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, bytes));
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    /**
+     * 找出相似度最高且达到阈值的条目
+     */
+    static Entry findBest(List<Entry> entries, float[] vector, double threshold) {
+        Entry best = null;
+        double bestScore = threshold;
+        for (Entry entry : entries) {
+            double score = VectorUtil.cosine(vector, VectorUtil.fromBytes(entry.getVector()));
+            if (score >= bestScore) {
+                best = entry;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
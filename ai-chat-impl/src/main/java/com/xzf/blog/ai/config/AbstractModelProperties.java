@@ -13,4 +13,71 @@ public class AbstractModelProperties {
 
     private String model;
 
+    /**
+     * 长文章分块摘要
+     */
+    private MapReduce mapReduce = new MapReduce();
+
+    @Data
+    public static class MapReduce {
+
+        private boolean enabled = true;
+
+        /**
+         * 文章估算 token 数超过该值时分块摘要，否则一次生成
+         */
+        private int thresholdTokens = 6000;
+
+        /**
+         * 每个分块的 token 上限
+         */
+        private int chunkTokens = 2000;
+
+        /**
+         * 分块摘要的并发上限
+         */
+        private int maxConcurrency = 4;
+
+        /**
+         * 单个分块摘要的超时时间（秒），包含失败后的一次重试
+         */
+        private long chunkTimeoutSeconds = 60;
+
+        /**
+         * 分块摘要的最大层数，达到后不再继续分块，直接合并
+         */
+        private int maxDepth = 3;
+
+        /**
+         * 分块前的切分策略，切出的片段按顺序合并为分块
+         */
+        private String splitStrategy = "row";
+
+        /**
+         * 分块摘要提示词
+         */
+        private String mapPrompt = "你是一个专业的文章摘要助手。下面是一篇长文章中的一部分，请提炼这一部分的关键信息，用不超过200字的中文概括，只输出概括内容，不要添加原文没有的信息。";
+
+        /**
+         * 合并分块摘要时附加在内容前的说明，系统提示词沿用 systemPrompt
+         */
+        private String reducePrefix = "以下是同一篇文章按顺序各部分的摘要，请据此生成整篇文章的摘要：\n";
+    }
+
+    /**
+     * 文章内容未变化时跳过摘要重新生成
+     */
+    private Dedup dedup = new Dedup();
+
+    @Data
+    public static class Dedup {
+
+        private boolean enabled = true;
+
+        /**
+         * 内容摘要及生成摘要在 Redis 中的保留时间，过期后下次更新会重新生成
+         */
+        private long expireSeconds = 30 * 24 * 3600;
+    }
+
 }
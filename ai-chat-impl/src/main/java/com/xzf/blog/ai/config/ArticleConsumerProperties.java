@@ -0,0 +1,33 @@
+package com.xzf.blog.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文章 RAG 索引消费者配置
+ */
+@Data
+@ConfigurationProperties(prefix = "article.consumer")
+@Component
+public class ArticleConsumerProperties {
+
+    /**
+     * 是否启用批量消费，启用后逐条消费的 RAG 消费者不再注册
+     */
+    private boolean batchEnabled = false;
+
+    /**
+     * 单次回调最多处理的消息数，同时作为每次拉取的消息数
+     */
+    private int batchSize = 32;
+
+    private int consumeThreadMin = 1;
+
+    private int consumeThreadMax = 4;
+
+    /**
+     * 每秒处理的消息数上限，逐条消费与批量消费共用
+     */
+    private double permitsPerSecond = 50;
+}
@@ -9,12 +9,256 @@ import org.springframework.stereotype.Component;
 @Component
 public class ChatModelProperties {
 
+    /**
+     * 会话最大轮次，小于等于 0 表示不限制
+     */
     private int maxRound = 10;
 
     private int historyRound = 4;
 
+    /**
+     * 会话历史缓存保留的消息数，不小于 historyRound * 2；历史记录接口的首页不超过该条数时直接从缓存读取
+     */
+    private int historyCacheSize = 20;
+
     private long expireSeconds = 60 * 60 * 12;
 
     private String chatSystemPrompt = "以下是相关的知识片段:";
 
+    /**
+     * 调用大模型前并发执行的各阶段超时配置
+     */
+    private Stage stage = new Stage();
+
+    /**
+     * 各阶段超时或失败时降级继续对话：轮次校验放行，历史记录为空，检索片段为空
+     */
+    @Data
+    public static class Stage {
+
+        private long roundTimeoutMillis = 500;
+
+        private long historyTimeoutMillis = 500;
+
+        private long retrievalTimeoutMillis = 2000;
+    }
+
+    /**
+     * 提示词组装
+     */
+    private Prompt prompt = new Prompt();
+
+    /**
+     * 按估算 token 数组装提示词，优先级：系统提示词与本次问题 > 最近 reservedHistoryRounds 轮历史 > 检索片段 > 更早的历史
+     */
+    @Data
+    public static class Prompt {
+
+        /**
+         * 提示词 token 预算（估算值），系统提示词与本次问题总是保留
+         */
+        private int maxTokens = 3000;
+
+        /**
+         * 优先于检索片段保留的最近历史轮数，保证追问时能看到上一轮
+         */
+        private int reservedHistoryRounds = 1;
+
+        /**
+         * 每条消息的角色、分隔符等额外 token 数
+         */
+        private int messageOverheadTokens = 4;
+    }
+
+    /**
+     * 会话滚动摘要
+     */
+    private Summary summary = new Summary();
+
+    /**
+     * 未摘要的轮次达到 keepRounds + triggerRounds 时，异步把最近 keepRounds 轮之前的对话合并进摘要；
+     * 提示词携带摘要及未摘要的最近几轮，长会话的提示词长度不再随轮次增长
+     */
+    @Data
+    public static class Summary {
+
+        private boolean enabled = true;
+
+        /**
+         * 不参与摘要、原文保留在提示词中的最近轮数
+         */
+        private int keepRounds = 2;
+
+        /**
+         * 未摘要轮次超过 keepRounds 多少轮时触发一次摘要
+         */
+        private int triggerRounds = 2;
+
+        /**
+         * 单次最多合并的轮数，更早的未摘要轮次直接跳过
+         */
+        private int maxFoldRounds = 8;
+
+        /**
+         * 摘要字数上限
+         */
+        private int maxChars = 300;
+
+        /**
+         * 摘要任务锁的过期时间（秒）
+         */
+        private long lockSeconds = 120;
+
+        private String prompt = "你是对话摘要助手。请把已有摘要和新增对话合并为一段新的摘要，保留用户的关键问题、偏好、已确认的结论和尚未解决的问题，不要编造，使用中文，不超过%d字。";
+    }
+
+    /**
+     * 流式输出合帧
+     */
+    private Frame frame = new Frame();
+
+    /**
+     * 首个 token 立即发出，之后按字节数或等待时间合并多个 token 为一个 SSE 事件
+     */
+    @Data
+    public static class Frame {
+
+        private boolean enabled = true;
+
+        /**
+         * 单帧字节数（UTF-8）上限
+         */
+        private int maxFrameBytes = 256;
+
+        /**
+         * token 合并等待的最长时间（毫秒）
+         */
+        private long maxDelayMillis = 20;
+    }
+
+    /**
+     * 对话流水线执行方式
+     */
+    private Execution execution = new Execution();
+
+    @Data
+    public static class Execution {
+
+        /**
+         * platform：使用独立的对话线程池；virtual：每个任务一个虚拟线程，并发对话数不受平台线程数限制
+         */
+        private Mode mode = Mode.PLATFORM;
+
+        /**
+         * 线程池模式下的核心线程数
+         */
+        private int corePoolSize = 10;
+
+        /**
+         * 线程池模式下的最大线程数
+         */
+        private int maxPoolSize = 50;
+
+        /**
+         * 线程池模式下的队列容量，队列满时直接拒绝，对话阶段走降级
+         */
+        private int queueCapacity = 200;
+
+        /**
+         * 虚拟线程模式下同时执行的任务数上限，小于等于 0 表示不限制
+         */
+        private int virtualConcurrencyLimit = -1;
+
+        public enum Mode {
+            PLATFORM,
+            VIRTUAL
+        }
+    }
+
+    /**
+     * 语义答案缓存
+     */
+    private SemanticCache semanticCache = new SemanticCache();
+
+    /**
+     * 同一范围内与历史问题的余弦相似度达到阈值时直接复用答案；
+     * 会话已有历史消息时答案依赖上下文，不读也不写缓存
+     */
+    @Data
+    public static class SemanticCache {
+
+        private boolean enabled = true;
+
+        /**
+         * 命中阈值（余弦相似度）
+         */
+        private double threshold = 0.95;
+
+        /**
+         * 每个范围最多缓存的问题数，超过后淘汰最早写入的问题
+         */
+        private int maxEntriesPerScope = 200;
+
+        /**
+         * Redis 缓存过期时间（秒）
+         */
+        private long expireSeconds = 60 * 60 * 24 * 7;
+
+        /**
+         * 本地缓存过期时间（秒），其他实例写入或失效后最多延迟该时间可见
+         */
+        private long localExpireSeconds = 30;
+
+        /**
+         * 本地缓存内存上限（MB），按向量、问题、答案及检索片段的大小估算，超出后淘汰最久未访问的范围
+         */
+        private long localMaxMemoryMb = 64;
+
+        /**
+         * 回放答案时每个分片的字符数
+         */
+        private int replayChunkSize = 8;
+
+        private long lookupTimeoutMillis = 500;
+    }
+
+    /**
+     * 对话记录异步批量写入
+     */
+    private HistoryWrite historyWrite = new HistoryWrite();
+
+    @Data
+    public static class HistoryWrite {
+
+        /**
+         * 关闭时每轮对话同步写库
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓冲队列容量（条）
+         */
+        private int capacity = 10000;
+
+        /**
+         * 单次批量写入的最大条数
+         */
+        private int batchSize = 200;
+
+        /**
+         * 攒批最长等待时间（毫秒）
+         */
+        private long flushIntervalMillis = 500;
+
+        /**
+         * 队列满时入队等待时间（毫秒），超时后由调用线程同步写库
+         */
+        private long offerTimeoutMillis = 100;
+
+        /**
+         * 写库失败时的落盘目录，恢复后重放；开启时必须配置为绝对路径，避免随工作目录变化导致落盘记录无法重放
+         */
+        private String spoolDir;
+    }
+
 }
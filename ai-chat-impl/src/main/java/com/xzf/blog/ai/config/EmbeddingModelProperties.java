@@ -12,4 +12,82 @@ public class EmbeddingModelProperties {
     private String apiKey;
     private String modelName;
 
+    /**
+     * 向量维度（智谱 embedding-3 为 2048），参与查询向量缓存 key 的计算
+     */
+    private int dimension = 2048;
+
+    /**
+     * 查询向量缓存
+     */
+    private QueryCache queryCache = new QueryCache();
+
+    /**
+     * 在线 embed 调用微批合并
+     */
+    private Batching batching = new Batching();
+
+    @Data
+    public static class Batching {
+
+        private boolean enabled = true;
+
+        /**
+         * 合并等待的时间窗口（毫秒），也是单个请求额外等待的上限
+         */
+        private long windowMillis = 3;
+
+        /**
+         * 单批最多合并的文本数
+         */
+        private int maxBatchSize = 16;
+
+        /**
+         * 同时在途的批次数上限
+         */
+        private int maxConcurrentBatches = 4;
+
+        /**
+         * 等待合并结果的超时时间（毫秒），超时后直接调用向量模型
+         */
+        private long timeoutMillis = 5000;
+    }
+
+    /**
+     * 文件入库
+     */
+    private Ingest ingest = new Ingest();
+
+    @Data
+    public static class Ingest {
+
+        /**
+         * 单次向量化及写入向量库的片段数
+         */
+        private int batchSize = 32;
+    }
+
+    @Data
+    public static class QueryCache {
+
+        private boolean enabled = true;
+
+        /**
+         * 本地 LRU 最大条数
+         */
+        private long localMaxSize = 10000;
+
+        /**
+         * 本地缓存过期时间（秒）
+         */
+        private long localExpireSeconds = 60 * 30;
+
+        private boolean redisEnabled = true;
+
+        /**
+         * Redis 缓存过期时间（秒）
+         */
+        private long redisExpireSeconds = 60 * 60 * 24 * 7;
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.xzf.blog.ai.config;
 
+import com.xzf.blog.ai.store.AnnIndexConfig;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -13,4 +14,9 @@ public class EmbeddingStoreProperties {
     private String collectionName;
     private String username;
     private String password;
+
+    /**
+     * 向量索引类型及构建、检索参数
+     */
+    private AnnIndexConfig index = new AnnIndexConfig();
 }
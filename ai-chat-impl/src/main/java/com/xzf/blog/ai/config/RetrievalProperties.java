@@ -0,0 +1,123 @@
+package com.xzf.blog.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文章片段检索配置
+ */
+@Data
+@ConfigurationProperties(prefix = "system.retrieval")
+@Component
+public class RetrievalProperties {
+
+    /**
+     * vector：向量检索；lexical：只用关键词检索；hybrid：向量与关键词结果按倒数排名融合
+     */
+    private Mode mode = Mode.VECTOR;
+
+    /**
+     * 是否维护内存关键词索引，关闭后快速路径、降级与融合均不可用
+     */
+    private boolean lexicalEnabled = true;
+
+    /**
+     * 返回的片段数
+     */
+    private int topK = 3;
+
+    /**
+     * 向量检索最小相似度分数
+     */
+    private double minScore = 0.6;
+
+    /**
+     * 关键词类查询（代码标识符、引号短语、短的非疑问句）优先走关键词检索，有结果时不再调用向量模型
+     */
+    private boolean keywordFastPath = true;
+
+    /**
+     * 不超过该字符数的非疑问句视为关键词查询
+     */
+    private int keywordMaxChars = 12;
+
+    /**
+     * 查询向量生成加向量检索的耗时预算（毫秒），超时或失败时降级为关键词检索
+     */
+    private long vectorTimeoutMillis = 1000;
+
+    /**
+     * 融合模式下每一路的候选数
+     */
+    private int hybridCandidates = 10;
+
+    /**
+     * 倒数排名融合常数 k，score = Σ 1 / (k + rank)
+     */
+    private int rrfK = 60;
+
+    /**
+     * 指定文章的检索在本地按文章缓存的片段向量上精确计算
+     */
+    private LocalVector localVector = new LocalVector();
+
+    /**
+     * 向量检索执行器，执行方式跟随 system.chat.execution.mode
+     */
+    private Execution execution = new Execution();
+
+    public enum Mode {
+        VECTOR,
+        LEXICAL,
+        HYBRID
+    }
+
+    /**
+     * 执行器拒绝任务（线程池队列满）时向量检索降级为关键词检索
+     */
+    @Data
+    public static class Execution {
+
+        /**
+         * 线程池模式下的核心线程数
+         */
+        private int corePoolSize = 10;
+
+        /**
+         * 线程池模式下的最大线程数
+         */
+        private int maxPoolSize = 50;
+
+        /**
+         * 线程池模式下的队列容量
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * 虚拟线程模式下同时执行的向量检索数上限，小于等于 0 表示不限制
+         */
+        private int virtualConcurrencyLimit = -1;
+    }
+
+    @Data
+    public static class LocalVector {
+
+        private boolean enabled = true;
+
+        /**
+         * 本地片段向量占用内存上限（MB），超出后淘汰最久未访问的文章
+         */
+        private long maxMemoryMb = 64;
+
+        /**
+         * 片段数超过该值的文章不缓存，仍由向量库检索
+         */
+        private int maxSegmentsPerArticle = 2000;
+
+        /**
+         * 写入后过期时间（秒），兜底其他实例索引完成前收到失效消息时加载到的旧片段
+         */
+        private long expireSeconds = 600;
+    }
+}
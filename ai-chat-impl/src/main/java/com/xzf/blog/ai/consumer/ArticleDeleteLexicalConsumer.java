@@ -0,0 +1,47 @@
+package com.xzf.blog.ai.consumer;
+
+import com.xzf.blog.ai.lexical.LexicalIndex;
+import com.xzf.blog.ai.metrics.ConsumeLagHook;
+import com.xzf.blog.article.constants.MQConstants;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
+import org.apache.rocketmq.spring.annotation.MessageModel;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 文章删除后移除本实例关键词索引中的片段
+ */
+@Component
+@ConditionalOnProperty(name = "system.retrieval.lexical-enabled", havingValue = "true", matchIfMissing = true)
+@RocketMQMessageListener(consumerGroup = "ai_chat_group_lexical_" + MQConstants.TOPIC_DELETE_ARTICLE, // Group 组
+        topic = MQConstants.TOPIC_DELETE_ARTICLE, // 主题 Topic
+        messageModel = MessageModel.BROADCASTING // 每个实例都消费
+)
+public class ArticleDeleteLexicalConsumer implements RocketMQListener<Long>, RocketMQPushConsumerLifecycleListener {
+
+    @Autowired
+    private LexicalIndex lexicalIndex;
+
+    @Autowired
+    private ConsumeLagHook consumeLagHook;
+
+    @Override
+    public void onMessage(Long articleId) {
+        lexicalIndex.removeArticles(List.of(articleId));
+    }
+
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        // 启动时从向量库全量加载，只需要之后的消息
+        consumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_LAST_OFFSET);
+        // 记录消费延迟
+        consumeLagHook.register(consumer);
+    }
+}
@@ -0,0 +1,47 @@
+package com.xzf.blog.ai.consumer;
+
+import com.xzf.blog.article.constants.MQConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文章删除消息批量处理，合并为一次过滤删除
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "article.consumer.batch-enabled", havingValue = "true")
+@RocketMQMessageListener(consumerGroup = "ai_chat_group_rag_" + MQConstants.TOPIC_DELETE_ARTICLE, // Group 组
+        topic = MQConstants.TOPIC_DELETE_ARTICLE // 主题 Topic
+)
+public class ArticleDeleteRAGBatchConsumer extends ArticleRAGBatchConsumer {
+
+    /**
+     * 失败时整批重试，删除本身是幂等的
+     */
+    @Override
+    protected ConsumeConcurrentlyStatus consume(List<MessageExt> msgs, ConsumeConcurrentlyContext context) {
+        rateLimiter.acquire(msgs.size());
+        log.info("## ArticleRAGBatchConsumer消费到了 MQ 【智能服务：RAG删除文章片段】, 消息数: {}", msgs.size());
+
+        List<Long> articleIds = new ArrayList<>(msgs.size());
+        for (MessageExt msg : msgs) {
+            try {
+                articleIds.add(Long.valueOf(new String(msg.getBody(), StandardCharsets.UTF_8).trim()));
+            } catch (NumberFormatException e) {
+                log.error("## 解析文章id异常, msgId: {}", msg.getMsgId(), e);
+            }
+        }
+        return ragService.deleteByArticleIds(articleIds)
+                ? ConsumeConcurrentlyStatus.CONSUME_SUCCESS
+                : ConsumeConcurrentlyStatus.RECONSUME_LATER;
+    }
+}
@@ -2,14 +2,20 @@ package com.xzf.blog.ai.consumer;
 
 import com.google.common.util.concurrent.RateLimiter;
 import com.xzf.blog.ai.api.vo.req.ArticleReq;
+import com.xzf.blog.ai.config.ArticleConsumerProperties;
+import com.xzf.blog.ai.metrics.ConsumeLagHook;
 import com.xzf.blog.ai.service.RAGService;
 import com.xzf.blog.article.constants.MQConstants;
 import com.xzf.blog.article.dto.mq.ArticleMessage;
 import com.xzf.blog.framework.commons.util.JsonUtils;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
@@ -17,22 +23,41 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "article.consumer.batch-enabled", havingValue = "false", matchIfMissing = true)
 @RocketMQMessageListener(consumerGroup = "ai_chat_group_rag_" + MQConstants.TOPIC_DELETE_ARTICLE, // Group 组
         topic = MQConstants.TOPIC_DELETE_ARTICLE // 主题 Topic
 )
-public class ArticleDeleteRAGConsumer implements RocketMQListener<Long> {
+public class ArticleDeleteRAGConsumer implements RocketMQListener<Long>, RocketMQPushConsumerLifecycleListener {
 
     @Autowired
     private RAGService ragService;
 
-    private RateLimiter rateLimiter = RateLimiter.create(10);
+    @Autowired
+    private ArticleConsumerProperties articleConsumerProperties;
+
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ConsumeLagHook consumeLagHook;
+
+    @PostConstruct
+    public void init() {
+        // 与批量消费使用相同的限流配置，切换消费模式不改变处理速度
+        rateLimiter = RateLimiter.create(articleConsumerProperties.getPermitsPerSecond());
+    }
 
     @Override
     public void onMessage(Long articleId) {
         log.info("## ArticleDeleteRAGConsumer消费到了 MQ 【智能服务：RAG切分文章内容】, {}...", articleId);
         // 删除切片
-        rateLimiter.tryAcquire();
+        rateLimiter.acquire();
         ragService.deleteByArticleId(articleId);
     }
 
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        // 记录消费延迟
+        consumeLagHook.register(consumer);
+    }
+
 }
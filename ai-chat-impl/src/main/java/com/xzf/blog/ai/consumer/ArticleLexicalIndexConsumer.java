@@ -0,0 +1,59 @@
+package com.xzf.blog.ai.consumer;
+
+import com.xzf.blog.ai.api.vo.req.ArticleReq;
+import com.xzf.blog.ai.lexical.LexicalIndex;
+import com.xzf.blog.ai.metrics.ConsumeLagHook;
+import com.xzf.blog.ai.strategy.ArticleSegmenter;
+import com.xzf.blog.article.dto.mq.ArticleMessage;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import dev.langchain4j.data.segment.TextSegment;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+/**
+ * 关键词索引更新消费者
+ * 关键词索引在每个实例的内存中，子类以广播模式订阅文章发布、更新消息，按消息中的正文重新切分并替换该文章的索引
+ */
+@Slf4j
+public abstract class ArticleLexicalIndexConsumer implements RocketMQListener<String>, RocketMQPushConsumerLifecycleListener {
+
+    @Autowired
+    private LexicalIndex lexicalIndex;
+
+    @Autowired
+    private ArticleSegmenter articleSegmenter;
+
+    @Autowired
+    private ConsumeLagHook consumeLagHook;
+
+    @Override
+    public void onMessage(String message) {
+        try {
+            ArticleMessage articleVO = JsonUtils.parseObject(message, ArticleMessage.class);
+            List<TextSegment> segments = articleSegmenter.segment(ArticleReq.builder()
+                    .articleId(articleVO.getArticleId())
+                    .title(articleVO.getTitle())
+                    .content(articleVO.getContent())
+                    .build());
+            List<String> ids = segments.stream().map(segment -> segment.metadata().getString(ArticleSegmenter.SEGMENT_ID)).toList();
+            lexicalIndex.replaceArticle(articleVO.getArticleId(), ids, segments);
+        } catch (Exception e) {
+            // 本地索引更新失败不重试，下次重启时从向量库重建
+            log.error("## 更新关键词索引失败, message: {}", message, e);
+        }
+    }
+
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        // 启动时从向量库全量加载，只需要之后的消息
+        consumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_LAST_OFFSET);
+        // 记录消费延迟
+        consumeLagHook.register(consumer);
+    }
+}
@@ -1,6 +1,8 @@
 package com.xzf.blog.ai.consumer;
 
 import com.google.common.util.concurrent.RateLimiter;
+import com.xzf.blog.ai.cache.ArticleAbstractCache;
+import com.xzf.blog.ai.metrics.ConsumeLagHook;
 import com.xzf.blog.ai.service.AiChatService;
 import com.xzf.blog.article.api.ArticleFeignApi;
 import com.xzf.blog.article.constants.MQConstants;
@@ -10,8 +12,10 @@ import com.xzf.blog.framework.commons.response.Response;
 import com.xzf.blog.framework.commons.util.JsonUtils;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.springframework.stereotype.Component;
 
 
@@ -20,7 +24,7 @@ import org.springframework.stereotype.Component;
 @RocketMQMessageListener(consumerGroup = "ai_chat_group_abstract_" + MQConstants.TOPIC_PUBLISH_ARTICLE, // Group 组
         topic = MQConstants.TOPIC_PUBLISH_ARTICLE // 主题 Topic
 )
-public class ArticlePublishAbstractConsumer implements RocketMQListener<String> {
+public class ArticlePublishAbstractConsumer implements RocketMQListener<String>, RocketMQPushConsumerLifecycleListener {
 
     @Resource
     private AiChatService aiChatService;
@@ -28,11 +32,17 @@ public class ArticlePublishAbstractConsumer implements RocketMQListener<String>
     @Resource
     private ArticleFeignApi articleRpcService;
 
+    @Resource
+    private ArticleAbstractCache articleAbstractCache;
+
     private RateLimiter rateLimiter = RateLimiter.create(10);
 
+    @Resource
+    private ConsumeLagHook consumeLagHook;
+
     @Override
     public void onMessage(String body) {
-        rateLimiter.tryAcquire();
+        rateLimiter.acquire();
 
         log.info("## ArticlePublishAbstractConsumer消费到了 MQ 【智能服务：生成文章智能摘要】, {}...", body);
 
@@ -56,10 +66,17 @@ public class ArticlePublishAbstractConsumer implements RocketMQListener<String>
                 log.error("智能摘要更新失败:{}", JsonUtils.toJsonString(resp));
             } else {
                 log.info("智能摘要更新成功: {}", JsonUtils.toJsonString(resp));
+                articleAbstractCache.put(articleVO.getArticleId(), articleVO.getContent(), summary);
             }
         } catch (Exception e) {
             log.error("## 解析 JSON 字符串异常", e);
         }
     }
 
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        // 记录消费延迟
+        consumeLagHook.register(consumer);
+    }
+
 }
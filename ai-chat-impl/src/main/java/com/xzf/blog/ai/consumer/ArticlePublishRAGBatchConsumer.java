@@ -0,0 +1,17 @@
+package com.xzf.blog.ai.consumer;
+
+import com.xzf.blog.article.constants.MQConstants;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文章发布消息批量索引
+ */
+@Component
+@ConditionalOnProperty(name = "article.consumer.batch-enabled", havingValue = "true")
+@RocketMQMessageListener(consumerGroup = "ai_chat_group_rag_" + MQConstants.TOPIC_PUBLISH_ARTICLE, // Group 组
+        topic = MQConstants.TOPIC_PUBLISH_ARTICLE // 主题 Topic
+)
+public class ArticlePublishRAGBatchConsumer extends ArticleUploadRAGBatchConsumer {
+}
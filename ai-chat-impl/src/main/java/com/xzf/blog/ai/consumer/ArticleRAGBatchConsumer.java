@@ -0,0 +1,67 @@
+package com.xzf.blog.ai.consumer;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.xzf.blog.ai.config.ArticleConsumerProperties;
+import com.xzf.blog.ai.metrics.ConsumeLagHook;
+import com.xzf.blog.ai.service.RAGService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+
+import java.util.List;
+
+/**
+ * 文章 RAG 索引批量消费者
+ * 消费者由 rocketmq-spring 按子类上的 @RocketMQMessageListener 创建和管理，name server 等取自 rocketmq.* 配置；
+ * 启动前替换为批量监听器，一次回调处理多条消息。
+ * 沿用逐条消费者的消费组，切换模式后从原有消费进度继续消费
+ */
+@Slf4j
+public abstract class ArticleRAGBatchConsumer implements RocketMQListener<String>, RocketMQPushConsumerLifecycleListener {
+
+    @Resource
+    protected RAGService ragService;
+
+    @Resource
+    private ArticleConsumerProperties articleConsumerProperties;
+
+    @Resource
+    private ConsumeLagHook consumeLagHook;
+
+    protected RateLimiter rateLimiter;
+
+    @PostConstruct
+    public void init() {
+        rateLimiter = RateLimiter.create(articleConsumerProperties.getPermitsPerSecond());
+    }
+
+    /**
+     * 处理一批消息
+     */
+    protected abstract ConsumeConcurrentlyStatus consume(List<MessageExt> msgs, ConsumeConcurrentlyContext context);
+
+    @Override
+    public void onMessage(String message) {
+        // prepareStart 中已替换为批量监听器，不会逐条回调
+        throw new IllegalStateException("批量消费者不支持逐条消费");
+    }
+
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        consumer.setConsumeMessageBatchMaxSize(articleConsumerProperties.getBatchSize());
+        consumer.setPullBatchSize(articleConsumerProperties.getBatchSize());
+        consumer.setConsumeThreadMin(articleConsumerProperties.getConsumeThreadMin());
+        consumer.setConsumeThreadMax(articleConsumerProperties.getConsumeThreadMax());
+        consumer.registerMessageListener((MessageListenerConcurrently) this::consume);
+        // 记录消费延迟
+        consumeLagHook.register(consumer);
+        log.info("## 文章 RAG 批量消费者启动, group: {}, batchSize: {}", consumer.getConsumerGroup(), articleConsumerProperties.getBatchSize());
+    }
+}
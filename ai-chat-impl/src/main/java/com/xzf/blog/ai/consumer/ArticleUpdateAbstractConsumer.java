@@ -1,6 +1,8 @@
 package com.xzf.blog.ai.consumer;
 
 import com.google.common.util.concurrent.RateLimiter;
+import com.xzf.blog.ai.cache.ArticleAbstractCache;
+import com.xzf.blog.ai.metrics.ConsumeLagHook;
 import com.xzf.blog.ai.service.AiChatService;
 import com.xzf.blog.article.api.ArticleFeignApi;
 import com.xzf.blog.article.constants.MQConstants;
@@ -10,8 +12,10 @@ import com.xzf.blog.framework.commons.response.Response;
 import com.xzf.blog.framework.commons.util.JsonUtils;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.springframework.stereotype.Component;
 
 
@@ -20,7 +24,7 @@ import org.springframework.stereotype.Component;
 @RocketMQMessageListener(consumerGroup = "ai_chat_group_abstract_" + MQConstants.TOPIC_UPDATE_ARTICLE, // Group 组
         topic = MQConstants.TOPIC_UPDATE_ARTICLE // 主题 Topic
 )
-public class ArticleUpdateAbstractConsumer implements RocketMQListener<String> {
+public class ArticleUpdateAbstractConsumer implements RocketMQListener<String>, RocketMQPushConsumerLifecycleListener {
 
     @Resource
     private AiChatService aiChatService;
@@ -28,16 +32,26 @@ public class ArticleUpdateAbstractConsumer implements RocketMQListener<String> {
     @Resource
     private ArticleFeignApi articleRpcService;
 
+    @Resource
+    private ArticleAbstractCache articleAbstractCache;
+
     private RateLimiter rateLimiter = RateLimiter.create(10);
 
+    @Resource
+    private ConsumeLagHook consumeLagHook;
+
     @Override
     public void onMessage(String body) {
-        rateLimiter.tryAcquire();
+        rateLimiter.acquire();
 
         log.info("## 消费到了 MQ 【智能服务：生成文章智能摘要】, {}...", body);
 
         try {
             ArticleMessage articleVO = JsonUtils.parseObject(body, ArticleMessage.class);
+            if (articleAbstractCache.isUnchanged(articleVO.getArticleId(), articleVO.getContent())) {
+                // 只改了标题、标签等，正文未变化，沿用已有摘要
+                return;
+            }
             String article = String.format("文章标题:%s,文章内容:%s", articleVO.getTitle(), articleVO.getContent());
 
             Response<String> response = aiChatService.generateAbstract(article);
@@ -56,10 +70,17 @@ public class ArticleUpdateAbstractConsumer implements RocketMQListener<String> {
                 log.error("智能摘要更新失败:{}", JsonUtils.toJsonString(resp));
             } else {
                 log.info("智能摘要更新成功: {}", JsonUtils.toJsonString(resp));
+                articleAbstractCache.put(articleVO.getArticleId(), articleVO.getContent(), summary);
             }
         } catch (Exception e) {
             log.error("## 解析 JSON 字符串异常", e);
         }
     }
 
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        // 记录消费延迟
+        consumeLagHook.register(consumer);
+    }
+
 }
@@ -0,0 +1,19 @@
+package com.xzf.blog.ai.consumer;
+
+import com.xzf.blog.article.constants.MQConstants;
+import org.apache.rocketmq.spring.annotation.MessageModel;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文章更新后更新本实例的关键词索引
+ */
+@Component
+@ConditionalOnProperty(name = "system.retrieval.lexical-enabled", havingValue = "true", matchIfMissing = true)
+@RocketMQMessageListener(consumerGroup = "ai_chat_group_lexical_" + MQConstants.TOPIC_UPDATE_ARTICLE, // Group 组
+        topic = MQConstants.TOPIC_UPDATE_ARTICLE, // 主题 Topic
+        messageModel = MessageModel.BROADCASTING // 每个实例都消费
+)
+public class ArticleUpdateLexicalConsumer extends ArticleLexicalIndexConsumer {
+}
@@ -2,14 +2,20 @@ package com.xzf.blog.ai.consumer;
 
 import com.google.common.util.concurrent.RateLimiter;
 import com.xzf.blog.ai.api.vo.req.ArticleReq;
+import com.xzf.blog.ai.config.ArticleConsumerProperties;
+import com.xzf.blog.ai.metrics.ConsumeLagHook;
 import com.xzf.blog.ai.service.RAGService;
 import com.xzf.blog.article.constants.MQConstants;
 import com.xzf.blog.article.dto.mq.ArticleMessage;
 import com.xzf.blog.framework.commons.util.JsonUtils;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
@@ -17,28 +23,38 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "article.consumer.batch-enabled", havingValue = "false", matchIfMissing = true)
 @RocketMQMessageListener(consumerGroup = "ai_chat_group_rag_" + MQConstants.TOPIC_UPDATE_ARTICLE, // Group 组
         topic = MQConstants.TOPIC_UPDATE_ARTICLE // 主题 Topic
 )
-public class ArticleUpdateRAGConsumer implements RocketMQListener<String> {
+public class ArticleUpdateRAGConsumer implements RocketMQListener<String>, RocketMQPushConsumerLifecycleListener {
 
-    private RateLimiter rateLimiter = RateLimiter.create(10);
+    @Autowired
+    private ArticleConsumerProperties articleConsumerProperties;
+
+    private RateLimiter rateLimiter;
 
     @Autowired
     private RAGService ragService;
 
+    @Autowired
+    private ConsumeLagHook consumeLagHook;
+
+    @PostConstruct
+    public void init() {
+        // 与批量消费使用相同的限流配置，切换消费模式不改变处理速度
+        rateLimiter = RateLimiter.create(articleConsumerProperties.getPermitsPerSecond());
+    }
+
     @Override
     public void onMessage(String message) {
-        rateLimiter.tryAcquire();
+        rateLimiter.acquire();
         log.info("## ArticlePublishRAGConsumer消费到了 MQ 【智能服务：RAG切分文章内容】, {}...", message);
 
         try {
             ArticleMessage articleVO = JsonUtils.parseObject(message, ArticleMessage.class);
-            Long articleId = articleVO.getArticleId();
-
-            // 删除切片
-            ragService.deleteByArticleId(articleId);
 
+            // 增量更新切片，只重新向量化变化的片段
             boolean success = ragService.uploadArticle(ArticleReq.builder()
                     .articleId(articleVO.getArticleId())
                     .title(articleVO.getTitle())
@@ -53,4 +69,10 @@ public class ArticleUpdateRAGConsumer implements RocketMQListener<String> {
 
     }
 
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        // 记录消费延迟
+        consumeLagHook.register(consumer);
+    }
+
 }
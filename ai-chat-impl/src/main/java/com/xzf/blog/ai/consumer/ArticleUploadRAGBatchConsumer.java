@@ -0,0 +1,59 @@
+package com.xzf.blog.ai.consumer;
+
+import com.xzf.blog.ai.api.vo.req.ArticleReq;
+import com.xzf.blog.article.dto.mq.ArticleMessage;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.common.message.MessageExt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 文章发布、更新消息批量索引：新增片段合并向量化并一次写入向量库
+ */
+@Slf4j
+public abstract class ArticleUploadRAGBatchConsumer extends ArticleRAGBatchConsumer {
+
+    /**
+     * 并发消费模式下 ackIndex 之后的消息会被重新投递，因此确认到第一条失败消息之前；
+     * 之后已成功的消息重试时片段 id 不变，不会重复向量化
+     */
+    @Override
+    protected ConsumeConcurrentlyStatus consume(List<MessageExt> msgs, ConsumeConcurrentlyContext context) {
+        rateLimiter.acquire(msgs.size());
+        log.info("## ArticleRAGBatchConsumer消费到了 MQ 【智能服务：RAG切分文章内容】, 消息数: {}", msgs.size());
+
+        List<ArticleReq> reqs = new ArrayList<>(msgs.size());
+        // 同一文章以批次中最后一条消息为准，该文章的成败记在这条消息上
+        Map<Long, Integer> lastIndex = new HashMap<>();
+        for (int i = 0; i < msgs.size(); i++) {
+            try {
+                ArticleMessage articleVO = JsonUtils.parseObject(new String(msgs.get(i).getBody(), StandardCharsets.UTF_8), ArticleMessage.class);
+                reqs.add(ArticleReq.builder()
+                        .articleId(articleVO.getArticleId())
+                        .title(articleVO.getTitle())
+                        .content(articleVO.getContent())
+                        .build());
+                lastIndex.put(articleVO.getArticleId(), i);
+            } catch (Exception e) {
+                // 无法解析的消息重试也不会成功，直接跳过
+                log.error("## 解析 JSON 字符串异常, msgId: {}", msgs.get(i).getMsgId(), e);
+            }
+        }
+
+        Set<Long> failed = ragService.uploadArticles(reqs);
+        int firstFailed = failed.stream().mapToInt(lastIndex::get).min().orElse(msgs.size());
+        if (firstFailed < msgs.size()) {
+            log.error("## RAG批量切分文章内容失败, 失败文章: {}, 从第 {} 条消息起重新投递", failed, firstFailed);
+        }
+        context.setAckIndex(firstFailed - 1);
+        return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+    }
+}
@@ -0,0 +1,47 @@
+package com.xzf.blog.ai.consumer;
+
+import com.xzf.blog.ai.cache.ArticleVectorCache;
+import com.xzf.blog.ai.commons.constant.ChatMQConstants;
+import com.xzf.blog.ai.metrics.ConsumeLagHook;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
+import org.apache.rocketmq.spring.annotation.MessageModel;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文章片段向量本地缓存失效消费者
+ * 订阅写入方在片段写入或删除完成后发出的消息，而不是文章发布、更新消息，避免在新片段写入前重新加载旧片段；
+ * 本地缓存在每个实例的内存中，使用广播模式让每个实例都收到
+ */
+@Component
+@ConditionalOnProperty(name = "system.retrieval.local-vector.enabled", havingValue = "true", matchIfMissing = true)
+@RocketMQMessageListener(consumerGroup = "ai_chat_group_vector_cache_" + ChatMQConstants.TOPIC_ARTICLE_VECTOR_CHANGED, // Group 组
+        topic = ChatMQConstants.TOPIC_ARTICLE_VECTOR_CHANGED, // 主题 Topic
+        messageModel = MessageModel.BROADCASTING // 每个实例都消费
+)
+public class ArticleVectorCacheConsumer implements RocketMQListener<Long>, RocketMQPushConsumerLifecycleListener {
+
+    @Autowired
+    private ArticleVectorCache articleVectorCache;
+
+    @Autowired
+    private ConsumeLagHook consumeLagHook;
+
+    @Override
+    public void onMessage(Long articleId) {
+        articleVectorCache.invalidate(articleId);
+    }
+
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        // 缓存启动时为空，只需要之后的消息
+        consumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_LAST_OFFSET);
+        // 记录消费延迟
+        consumeLagHook.register(consumer);
+    }
+}
@@ -2,9 +2,11 @@ package com.xzf.blog.ai.controller;//package com.xzf.ai.chat.trigger.http;
 
 import com.xzf.blog.ai.api.IAiChatApiService;
 import com.xzf.blog.ai.api.vo.req.ChatHistoryReq;
+import com.xzf.blog.ai.api.vo.req.ChatHistoryScrollReq;
 import com.xzf.blog.ai.api.vo.req.ChatReq;
 import com.xzf.blog.ai.api.vo.req.RagasReq;
 import com.xzf.blog.ai.api.vo.resp.ChatHistoryRespVO;
+import com.xzf.blog.ai.api.vo.resp.ChatHistoryScrollRespVO;
 import com.xzf.blog.ai.api.vo.resp.RagasRespVO;
 import com.xzf.blog.ai.service.AiChatService;
 import com.xzf.blog.framework.commons.response.PageResponse;
@@ -32,6 +34,11 @@ public class IAiChatApiServiceImpl implements IAiChatApiService {
         return aiChatService.getHistoryChat(req);
     }
 
+    @Override
+    public Response<ChatHistoryScrollRespVO> scrollHistoryChat(ChatHistoryScrollReq req) {
+        return aiChatService.scrollHistoryChat(req);
+    }
+
     @Override
     public Response<RagasRespVO> query(RagasReq req) {
         return aiChatService.ragasQuery(req);
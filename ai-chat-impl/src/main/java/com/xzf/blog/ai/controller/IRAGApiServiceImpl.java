@@ -20,12 +20,8 @@ public class IRAGApiServiceImpl implements IRAGApiService {
     private RAGService ragService;
 
 //    @Override
-//    public Response<String> uploadFile(List<MultipartFile> files) {
-//        boolean success = ragService.uploadFile(files);
-//        if (success) {
-//            return Response.success("上传成功");
-//        }
-//        return Response.fail("上传失败");
+//    public Response<List<FileUploadRespVO>> uploadFile(List<MultipartFile> files) {
+//        return Response.success(ragService.uploadFile(files));
 //    }
 //
 //    @Override
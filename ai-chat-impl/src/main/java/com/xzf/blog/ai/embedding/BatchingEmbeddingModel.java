@@ -0,0 +1,256 @@
+package com.xzf.blog.ai.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 向量模型微批处理装饰器
+ * 并发的单条 embed 调用先进入队列，后台线程在时间窗口内（或攒满 maxBatchSize 条）合并为一次 embedAll，
+ * 结果按顺序回填到各调用方；单个请求最多额外等待一个时间窗口。
+ * 合并后的批次在 timeoutMillis 内未完成（分发线程异常退出、线程池拒绝等）时，调用方改为直接调用被装饰的模型。
+ * embedAll 本身已是批量调用，直接透传；被装饰的模型需真正支持批量请求，否则合并不会减少接口调用
+ */
+@Slf4j
+public class BatchingEmbeddingModel implements EmbeddingModel, MeterBinder, AutoCloseable {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final EmbeddingModel delegate;
+
+    private final int maxBatchSize;
+
+    private final long windowNanos;
+
+    private final long timeoutMillis;
+
+    private final BlockingQueue<PendingEmbedding> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * 执行合并后的 embedAll，线程数即同时在途的批次数上限
+     */
+    private final ExecutorService callExecutor;
+
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder textCount = new LongAdder();
+
+    private final LongAdder fallbackCount = new LongAdder();
+
+    private record PendingEmbedding(TextSegment segment, CompletableFuture<Embedding> future) {
+    }
+
+    /**
+     * @param delegate             实际的向量模型
+     * @param maxBatchSize         单批最多合并的文本数
+     * @param windowMillis         合并等待的时间窗口（毫秒）
+     * @param maxConcurrentBatches 同时在途的批次数上限
+     * @param timeoutMillis        等待合并结果的超时时间（毫秒），超时后直接调用被装饰的模型
+     */
+    public BatchingEmbeddingModel(EmbeddingModel delegate, int maxBatchSize, long windowMillis, int maxConcurrentBatches, long timeoutMillis) {
+        if (maxBatchSize <= 0 || windowMillis < 0 || maxConcurrentBatches <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("微批参数不合法: maxBatchSize=" + maxBatchSize + ", windowMillis=" + windowMillis
+                    + ", maxConcurrentBatches=" + maxConcurrentBatches + ", timeoutMillis=" + timeoutMillis);
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.callExecutor = Executors.newFixedThreadPool(maxConcurrentBatches, runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public Response<Embedding> embed(String text) {
+        return embed(TextSegment.from(text));
+    }
+
+    @Override
+    public Response<Embedding> embed(TextSegment textSegment) {
+        if (!running) {
+            return delegate.embed(textSegment);
+        }
+        CompletableFuture<Embedding> future = new CompletableFuture<>();
+        PendingEmbedding pending = new PendingEmbedding(textSegment, future);
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            // 入队时恰好关闭，不会再被合并处理
+            return delegate.embed(textSegment);
+        }
+        try {
+            return Response.from(future.get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            queue.remove(pending);
+            future.cancel(false);
+            fallbackCount.increment();
+            log.warn("等待合并向量化结果超时({}ms)，直接调用向量模型", timeoutMillis);
+            return delegate.embed(textSegment);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                fallbackCount.increment();
+                return delegate.embed(textSegment);
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            queue.remove(pending);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待向量化结果被中断", e);
+        }
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        return delegate.embedAll(textSegments);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                PendingEmbedding first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingEmbedding> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingEmbedding next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                submit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * 线程池拒绝时（已关闭）通知调用方改为直接调用
+     */
+    private void submit(List<PendingEmbedding> batch) {
+        try {
+            callExecutor.execute(() -> dispatch(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(pending -> pending.future().completeExceptionally(e));
+        }
+    }
+
+    private void dispatch(List<PendingEmbedding> batch) {
+        try {
+            List<TextSegment> segments = batch.stream().map(PendingEmbedding::segment).toList();
+            List<Embedding> embeddings = delegate.embedAll(segments).content();
+            if (embeddings.size() != batch.size()) {
+                throw new IllegalStateException("向量数量与文本数量不一致: " + embeddings.size() + " != " + batch.size());
+            }
+            batchCount.increment();
+            textCount.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(embeddings.get(i));
+            }
+        } catch (Exception e) {
+            log.warn("批量向量化失败, 文本数: {}", batch.size(), e);
+            batch.forEach(pending -> pending.future().completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void close() {
+        // 不中断分发线程，避免丢弃已攒了一半的批次；分发线程最多在一个空闲轮询周期加一个窗口后退出
+        running = false;
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 未来得及合并的请求直接逐条调用
+        List<PendingEmbedding> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (PendingEmbedding pending : remaining) {
+            submit(List.of(pending));
+        }
+        callExecutor.shutdown();
+    }
+
+    /**
+     * 批次数、合并的文本数（两者之比为平均批大小）、排队数及降级为直接调用的次数
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ai.embedding.batch.batches", batchCount, LongAdder::doubleValue)
+                .description("合并后调用向量模型的批次数")
+                .register(registry);
+        FunctionCounter.builder("ai.embedding.batch.texts", textCount, LongAdder::doubleValue)
+                .description("合并处理的文本数")
+                .register(registry);
+        FunctionCounter.builder("ai.embedding.batch.fallbacks", fallbackCount, LongAdder::doubleValue)
+                .description("等待合并结果超时或被拒绝后直接调用向量模型的次数")
+                .register(registry);
+        Gauge.builder("ai.embedding.batch.queue", queue, BlockingQueue::size)
+                .description("等待合并的请求数")
+                .register(registry);
+    }
+
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 平均每批合并的文本数
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0 : (double) textCount.sum() / batches;
+    }
+}
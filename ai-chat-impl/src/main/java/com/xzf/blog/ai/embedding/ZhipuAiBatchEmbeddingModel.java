@@ -0,0 +1,203 @@
+package com.xzf.blog.ai.embedding;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 智谱向量模型，embedAll 以数组形式一次提交多条文本
+ * langchain4j 的 ZhipuAiEmbeddingModel 对每个片段单独发起一次请求，批量合并无法减少接口调用次数
+ */
+@Slf4j
+public class ZhipuAiBatchEmbeddingModel implements EmbeddingModel {
+
+    /**
+     * 智谱接口单次请求的文本数上限
+     */
+    static final int MAX_INPUTS_PER_REQUEST = 64;
+
+    private static final String EMBEDDINGS_PATH = "api/paas/v4/embeddings";
+
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    private final HttpClient httpClient;
+
+    private final URI endpoint;
+
+    private final String apiKey;
+
+    private final String model;
+
+    private final Integer dimensions;
+
+    private final int maxInputsPerRequest;
+
+    private final Duration timeout;
+
+    private final int maxRetries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class EmbeddingRequest {
+
+        private String model;
+
+        private List<String> input;
+
+        private Integer dimensions;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class EmbeddingResponse {
+
+        private List<EmbeddingData> data;
+
+        private Usage usage;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class EmbeddingData {
+
+        private int index;
+
+        private float[] embedding;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Usage {
+
+        @JsonProperty("prompt_tokens")
+        private Integer promptTokens;
+
+        @JsonProperty("total_tokens")
+        private Integer totalTokens;
+    }
+
+    /**
+     * @param baseUrl             接口地址，如 https://open.bigmodel.cn/
+     * @param apiKey              API Key
+     * @param model               模型名称
+     * @param dimensions          输出维度，为空时使用模型默认维度
+     * @param maxInputsPerRequest 单次请求的文本数，不超过 64
+     * @param connectTimeout      连接超时
+     * @param timeout             单次请求超时
+     * @param maxRetries          限流、服务端错误或网络异常时的重试次数
+     */
+    @Builder
+    public ZhipuAiBatchEmbeddingModel(String baseUrl, String apiKey, String model, Integer dimensions, Integer maxInputsPerRequest,
+                                      Duration connectTimeout, Duration timeout, Integer maxRetries) {
+        String base = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.endpoint = URI.create(base + EMBEDDINGS_PATH);
+        this.apiKey = apiKey;
+        this.model = model;
+        this.dimensions = dimensions;
+        this.maxInputsPerRequest = maxInputsPerRequest == null ? MAX_INPUTS_PER_REQUEST
+                : Math.max(1, Math.min(maxInputsPerRequest, MAX_INPUTS_PER_REQUEST));
+        this.timeout = timeout == null ? Duration.ofSeconds(20) : timeout;
+        this.maxRetries = maxRetries == null ? 3 : maxRetries;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout == null ? Duration.ofSeconds(20) : connectTimeout)
+                .build();
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+        int inputTokens = 0;
+        for (int from = 0; from < textSegments.size(); from += maxInputsPerRequest) {
+            List<String> input = textSegments.subList(from, Math.min(from + maxInputsPerRequest, textSegments.size())).stream()
+                    .map(TextSegment::text)
+                    .toList();
+            EmbeddingResponse response = call(new EmbeddingRequest(model, input, dimensions));
+            if (response.getData() == null || response.getData().size() != input.size()) {
+                throw new IllegalStateException("智谱向量接口返回的向量数与文本数不一致: "
+                        + (response.getData() == null ? 0 : response.getData().size()) + " != " + input.size());
+            }
+            response.getData().stream()
+                    .sorted(Comparator.comparingInt(EmbeddingData::getIndex))
+                    .forEach(data -> embeddings.add(Embedding.from(data.getEmbedding())));
+            if (response.getUsage() != null && response.getUsage().getPromptTokens() != null) {
+                inputTokens += response.getUsage().getPromptTokens();
+            }
+        }
+        return Response.from(embeddings, new TokenUsage(inputTokens, 0));
+    }
+
+    @Override
+    public int dimension() {
+        return dimensions != null ? dimensions : EmbeddingModel.super.dimension();
+    }
+
+    private EmbeddingResponse call(EmbeddingRequest request) {
+        HttpRequest httpRequest = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JsonUtils.toJsonString(request), StandardCharsets.UTF_8))
+                .build();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+                int status = response.statusCode();
+                if (status == 200) {
+                    return JsonUtils.parseObject(response.body(), EmbeddingResponse.class);
+                }
+                boolean retryable = status == 429 || status >= 500;
+                if (!retryable || attempt >= maxRetries) {
+                    throw new IllegalStateException("智谱向量接口调用失败, status: " + status + ", body: " + response.body());
+                }
+                log.warn("智谱向量接口调用失败，准备重试, status: {}, 第{}次", status, attempt + 1);
+            } catch (IOException e) {
+                if (attempt >= maxRetries) {
+                    throw new IllegalStateException("智谱向量接口调用失败", e);
+                }
+                log.warn("智谱向量接口网络异常，准备重试, 第{}次", attempt + 1, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("智谱向量接口调用被中断", e);
+            }
+            sleep(RETRY_BACKOFF_MILLIS * (attempt + 1));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("智谱向量接口调用被中断", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.xzf.blog.ai.executor;
+
+import com.xzf.framework.biz.context.holder.LoginUserContextHolder;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+
+/**
+ * 异步任务上下文传递
+ * 提交任务时捕获当前线程的登录用户和 MDC，在执行线程中恢复，执行结束后还原执行线程原有的上下文；
+ * 线程池线程会被复用，虚拟线程则每个任务一个，两种执行方式都需要显式传递
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Long userId = LoginUserContextHolder.getUserId();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        return () -> {
+            Long previousUserId = LoginUserContextHolder.getUserId();
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            apply(userId, mdc);
+            try {
+                runnable.run();
+            } finally {
+                // 调用方线程执行（CallerRunsPolicy）时还原调用方自己的上下文
+                apply(previousUserId, previousMdc);
+            }
+        };
+    }
+
+    private static void apply(Long userId, Map<String, String> mdc) {
+        if (userId == null) {
+            LoginUserContextHolder.remove();
+        } else {
+            LoginUserContextHolder.setUserId(userId);
+        }
+        if (mdc == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(mdc);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.xzf.blog.ai.lexical;
+
+import com.xzf.blog.ai.config.RetrievalProperties;
+import com.xzf.blog.ai.store.ArticleEmbeddingStore;
+import dev.langchain4j.data.segment.TextSegment;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 文章片段内存倒排索引，按 BM25 打分
+ * 启动后从向量库加载全部文章片段，之后由文章发布、更新、删除消息保持最新；
+ * 加载期间收到消息的文章以消息为准，加载时跳过
+ */
+@Slf4j
+@Component
+public class LexicalIndex {
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    @Resource
+    private ArticleEmbeddingStore embeddingStore;
+
+    @Resource
+    private RetrievalProperties retrievalProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Doc> docs = new HashMap<>();
+
+    /**
+     * 词项 -> (片段id -> 词频)
+     */
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+
+    private final Map<Long, Set<String>> articleDocs = new HashMap<>();
+
+    private long totalLength;
+
+    /**
+     * 加载完成前通过消息更新过的文章，加载时不再覆盖
+     */
+    private final Set<Long> updatedDuringLoad = new HashSet<>();
+
+    private volatile boolean ready;
+
+    private record Doc(TextSegment segment, int length, Map<String, Integer> termFrequencies) {
+    }
+
+    public record Hit(String id, TextSegment segment, double score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!retrievalProperties.isLexicalEnabled()) {
+            return;
+        }
+        Thread loader = new Thread(this::load, "lexical-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        try {
+            embeddingStore.scanArticleSegments((id, segment) -> {
+                Long articleId = segment.metadata().getLong(ArticleEmbeddingStore.ARTICLE_ID);
+                lock.writeLock().lock();
+                try {
+                    if (!updatedDuringLoad.contains(articleId)) {
+                        addDoc(id, articleId, segment);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            lock.writeLock().lock();
+            try {
+                updatedDuringLoad.clear();
+                ready = true;
+                log.info("关键词索引加载完成, 片段数: {}, 文章数: {}, 耗时: {}ms", docs.size(), articleDocs.size(), System.currentTimeMillis() - start);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            // 加载失败时不启用关键词检索，检索仍走向量
+            log.error("关键词索引加载失败", e);
+        }
+    }
+
+    /**
+     * 用文章最新的片段替换索引中该文章的全部片段
+     *
+     * @param ids      片段 id，与向量库中的片段 id 一致
+     * @param segments 片段，元数据中需包含文章id
+     */
+    public void replaceArticle(Long articleId, List<String> ids, List<TextSegment> segments) {
+        lock.writeLock().lock();
+        try {
+            removeArticle(articleId);
+            for (int i = 0; i < ids.size(); i++) {
+                addDoc(ids.get(i), articleId, segments.get(i));
+            }
+            markUpdated(articleId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeArticles(Collection<Long> articleIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long articleId : articleIds) {
+                removeArticle(articleId);
+                markUpdated(articleId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * BM25 检索
+     *
+     * @param articleId 文章id，为空时在全部文章中检索
+     * @return 按分数降序的前 topK 个片段
+     */
+    public List<Hit> search(Long articleId, String query, int topK) {
+        Set<String> terms = new LinkedHashSet<>(LexicalTokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<String> scope = articleId == null ? null : articleDocs.getOrDefault(articleId, Set.of());
+            if (docs.isEmpty() || (scope != null && scope.isEmpty())) {
+                return List.of();
+            }
+            int docCount = docs.size();
+            double averageLength = (double) totalLength / docCount;
+            Map<String, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<String, Integer> entry : posting.entrySet()) {
+                    if (scope != null && !scope.contains(entry.getKey())) {
+                        continue;
+                    }
+                    int length = docs.get(entry.getKey()).length();
+                    double tf = entry.getValue();
+                    double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                    scores.merge(entry.getKey(), score, Double::sum);
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                    .limit(topK)
+                    .map(entry -> new Hit(entry.getKey(), docs.get(entry.getKey()).segment(), entry.getValue()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markUpdated(Long articleId) {
+        if (!ready) {
+            updatedDuringLoad.add(articleId);
+        }
+    }
+
+    private void addDoc(String id, Long articleId, TextSegment segment) {
+        if (docs.containsKey(id)) {
+            return;
+        }
+        List<String> tokens = LexicalTokenizer.tokenize(segment.text());
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        tokens.forEach(token -> termFrequencies.merge(token, 1, Integer::sum));
+        docs.put(id, new Doc(segment, tokens.size(), termFrequencies));
+        termFrequencies.forEach((term, tf) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(id, tf));
+        articleDocs.computeIfAbsent(articleId, key -> new HashSet<>()).add(id);
+        totalLength += tokens.size();
+    }
+
+    private void removeArticle(Long articleId) {
+        Set<String> ids = articleDocs.remove(articleId);
+        if (ids == null) {
+            return;
+        }
+        for (String id : new ArrayList<>(ids)) {
+            Doc doc = docs.remove(id);
+            if (doc == null) {
+                continue;
+            }
+            totalLength -= doc.length();
+            doc.termFrequencies().keySet().forEach(term -> {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.xzf.blog.ai.lexical;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 关键词检索分词
+ * 不依赖词典：连续的中日韩字符切为相邻二元组（单字时保留单字），英文和数字按连续字母数字切词并转小写
+ */
+public class LexicalTokenizer {
+
+    // 私有构造函数，防止实例化
+    private LexicalTokenizer() {
+        throw new AssertionError("工具类禁止实例化");
+    }
+
+    /**
+     * 代码标识符：驼峰、下划线、点号连接或带括号的调用
+     */
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z0-9]+[A-Z]\\w*|\\w+_\\w+|[A-Za-z]\\w*\\.\\w+|\\w+\\(\\)");
+
+    private static final Pattern QUESTION = Pattern.compile("[?？吗呢]|什么|怎么|怎样|如何|为什么|为何|哪|是否|能否|区别");
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjk = new StringBuilder();
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjk.appendCodePoint(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjk, tokens);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjk, tokens);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjk(cjk, tokens);
+        return tokens;
+    }
+
+    /**
+     * 判断查询是否偏关键词：带引号的短语、代码标识符，或不超过 maxChars 个字符的非疑问句
+     */
+    public static boolean isKeywordQuery(String query, int maxChars) {
+        if (query == null || query.isBlank()) {
+            return false;
+        }
+        String trimmed = query.strip();
+        if (IDENTIFIER.matcher(trimmed).find() || trimmed.indexOf('"') >= 0 || trimmed.indexOf('“') >= 0) {
+            return true;
+        }
+        return trimmed.codePointCount(0, trimmed.length()) <= maxChars && !QUESTION.matcher(trimmed).find();
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (!word.isEmpty()) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(StringBuilder cjk, List<String> tokens) {
+        if (cjk.isEmpty()) {
+            return;
+        }
+        int[] codePoints = cjk.codePoints().toArray();
+        if (codePoints.length == 1) {
+            tokens.add(new String(codePoints, 0, 1));
+        } else {
+            for (int i = 0; i + 1 < codePoints.length; i++) {
+                tokens.add(new String(codePoints, i, 2));
+            }
+        }
+        cjk.setLength(0);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+}
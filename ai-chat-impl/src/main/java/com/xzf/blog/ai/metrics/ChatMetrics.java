@@ -0,0 +1,153 @@
+package com.xzf.blog.ai.metrics;
+
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 对话及入库流水线指标
+ * 各阶段耗时按 (流水线, 阶段, 结果) 打标签，可以定位慢请求耗在 Redis、MySQL、向量模型、向量库还是大模型
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String PIPELINE_CHAT = "chat";
+    public static final String PIPELINE_RAGAS = "ragas";
+    public static final String PIPELINE_ABSTRACT = "abstract";
+    public static final String PIPELINE_INGEST = "ingest";
+    public static final String PIPELINE_RETRIEVAL = "retrieval";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_TIMEOUT = "timeout";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    private final MeterRegistry registry;
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 记录阶段耗时
+     */
+    public void recordStage(String pipeline, String stage, String outcome, long nanos) {
+        Timer.builder("ai.pipeline.stage")
+                .description("流水线各阶段耗时")
+                .tag("pipeline", pipeline)
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 执行并记录阶段耗时，抛出异常时结果记为 error
+     */
+    public <T> T timeStage(String pipeline, String stage, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = supplier.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            recordStage(pipeline, stage, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 首字延迟：从开始处理请求到发出第一个 token
+     *
+     * @param source model：大模型生成；cache：语义缓存回放
+     */
+    public void recordTimeToFirstToken(String source, long nanos) {
+        Timer.builder("ai.chat.time.to.first.token")
+                .description("流式对话首字延迟")
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 模型返回的 token 用量，提示词与生成分别计数
+     */
+    public void recordTokenUsage(String pipeline, TokenUsage tokenUsage) {
+        if (tokenUsage == null) {
+            return;
+        }
+        incrementTokens(pipeline, "prompt", tokenUsage.inputTokenCount());
+        incrementTokens(pipeline, "completion", tokenUsage.outputTokenCount());
+    }
+
+    /**
+     * 生成速度：首个 token 之后的生成 token 数 / 生成耗时
+     */
+    public void recordGenerationRate(Integer completionTokens, long generationNanos) {
+        if (completionTokens == null || completionTokens <= 0 || generationNanos <= 0) {
+            return;
+        }
+        DistributionSummary.builder("ai.chat.tokens.per.second")
+                .description("流式对话生成速度")
+                .register(registry)
+                .record(completionTokens * 1e9 / generationNanos);
+    }
+
+    /**
+     * 检索返回的片段数
+     *
+     * @param path 检索路径：vector / local / lexical / keyword / hybrid 等
+     */
+    public void recordRetrievedSegments(String path, int count) {
+        DistributionSummary.builder("ai.retrieval.segments")
+                .description("检索返回的片段数")
+                .tag("path", path)
+                .register(registry)
+                .record(count);
+    }
+
+    /**
+     * 向量检索命中片段的相关性分数
+     *
+     * @param source milvus / local
+     */
+    public void recordRetrievalScore(String source, double score) {
+        DistributionSummary.builder("ai.retrieval.score")
+                .description("向量检索片段相关性分数")
+                .tag("source", source)
+                .serviceLevelObjectives(0.6, 0.7, 0.8, 0.9)
+                .register(registry)
+                .record(score);
+    }
+
+    /**
+     * 消息从写入 Broker 到开始消费的延迟
+     */
+    public void recordConsumeLag(String consumerGroup, long millis) {
+        Timer.builder("ai.mq.consume.lag")
+                .description("消息写入到开始消费的延迟")
+                .tag("consumerGroup", consumerGroup)
+                .register(registry)
+                .record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+
+    private void incrementTokens(String pipeline, String type, Integer count) {
+        if (count == null || count <= 0) {
+            return;
+        }
+        Counter.builder("ai.model.tokens")
+                .description("大模型 token 用量")
+                .tag("pipeline", pipeline)
+                .tag("type", type)
+                .register(registry)
+                .increment(count);
+    }
+}
@@ -0,0 +1,45 @@
+package com.xzf.blog.ai.metrics;
+
+import jakarta.annotation.Resource;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.hook.ConsumeMessageContext;
+import org.apache.rocketmq.client.hook.ConsumeMessageHook;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消费延迟埋点：每条消息开始消费时记录其写入 Broker 到当前的时间，按消费组打标签
+ */
+@Component
+public class ConsumeLagHook implements ConsumeMessageHook {
+
+    @Resource
+    private ChatMetrics chatMetrics;
+
+    /**
+     * 在消费者启动前注册
+     */
+    public void register(DefaultMQPushConsumer consumer) {
+        consumer.getDefaultMQPushConsumerImpl().registerConsumeMessageHook(this);
+    }
+
+    @Override
+    public String hookName() {
+        return "consumeLagHook";
+    }
+
+    @Override
+    public void consumeMessageBefore(ConsumeMessageContext context) {
+        if (context.getMsgList() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (MessageExt msg : context.getMsgList()) {
+            chatMetrics.recordConsumeLag(context.getConsumerGroup(), now - msg.getStoreTimestamp());
+        }
+    }
+
+    @Override
+    public void consumeMessageAfter(ConsumeMessageContext context) {
+    }
+}
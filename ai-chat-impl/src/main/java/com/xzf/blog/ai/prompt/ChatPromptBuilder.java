@@ -0,0 +1,128 @@
+package com.xzf.blog.ai.prompt;
+
+import com.xzf.blog.ai.api.vo.req.ChatReq;
+import com.xzf.blog.ai.commons.enums.ChatType;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.model.ChatHistoryDO;
+import com.xzf.blog.ai.util.TokenUtil;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对话提示词组装
+ * 历史消息按角色还原为 UserMessage / AiMessage，只保留文本；检索片段编号后拼接在系统提示词之后。
+ * 按估算 token 数在预算内依次放入：最近 reservedHistoryRounds 轮历史 > 检索片段（按相关性顺序）> 更早的历史（由近及远），
+ * 系统提示词、会话摘要与本次问题总是保留
+ */
+@Component
+public class ChatPromptBuilder {
+
+    /**
+     * @param messages        发送给模型的消息：系统提示词、历史对话、本次问题
+     * @param segments        放入提示词的检索片段
+     * @param historyRounds   放入提示词的历史轮数
+     * @param estimatedTokens 估算的提示词 token 数
+     */
+    public record ChatPrompt(List<ChatMessage> messages, List<String> segments, int historyRounds, int estimatedTokens) {
+    }
+
+    /**
+     * 一轮历史对话：用户消息及其后的回答
+     */
+    private record Round(List<ChatMessage> messages, int tokens) {
+    }
+
+    /**
+     * @param summary  较早轮次的会话摘要，可以为空
+     * @param history  按时间升序的历史消息，不包含已合并进摘要的轮次
+     * @param segments 按相关性降序的检索片段
+     */
+    public ChatPrompt build(String systemPrompt, String summary, List<ChatHistoryDO> history, List<String> segments, String question,
+                            ChatModelProperties.Prompt config) {
+        int overhead = config.getMessageOverheadTokens();
+        String summaryText = summary == null || summary.isBlank() ? "" : "\n# 对话摘要\n" + summary;
+        int used = TokenUtil.estimate(systemPrompt) + TokenUtil.estimate(summaryText) + TokenUtil.estimate(question) + overhead * 2;
+        int remaining = config.getMaxTokens() - used;
+
+        List<Round> rounds = toRounds(history, overhead);
+        // 从最近一轮开始连续保留，first 之后的轮次放入提示词
+        int first = rounds.size();
+        int reserved = 0;
+        while (first > 0 && reserved < config.getReservedHistoryRounds() && rounds.get(first - 1).tokens() <= remaining) {
+            remaining -= rounds.get(--first).tokens();
+            reserved++;
+        }
+
+        List<String> keptSegments = new ArrayList<>();
+        StringBuilder numbered = new StringBuilder();
+        for (String segment : segments) {
+            String line = String.format("[%d] %s\n", keptSegments.size() + 1, segment);
+            int tokens = TokenUtil.estimate(line);
+            if (tokens > remaining) {
+                break;
+            }
+            remaining -= tokens;
+            keptSegments.add(segment);
+            numbered.append(line);
+        }
+
+        while (first > 0 && rounds.get(first - 1).tokens() <= remaining) {
+            remaining -= rounds.get(--first).tokens();
+        }
+
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(new SystemMessage(systemPrompt + summaryText + "\n" + numbered));
+        for (Round round : rounds.subList(first, rounds.size())) {
+            messages.addAll(round.messages());
+        }
+        messages.add(new UserMessage(question));
+        return new ChatPrompt(messages, keptSegments, rounds.size() - first, config.getMaxTokens() - remaining);
+    }
+
+    private static List<Round> toRounds(List<ChatHistoryDO> history, int overhead) {
+        List<Round> rounds = new ArrayList<>();
+        List<ChatMessage> current = new ArrayList<>();
+        int tokens = 0;
+        for (ChatHistoryDO chatHistoryDO : history) {
+            String text = textOf(chatHistoryDO);
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            boolean user = chatHistoryDO.getType() == ChatType.USER_MESSAGE;
+            if (user && !current.isEmpty()) {
+                rounds.add(new Round(current, tokens));
+                current = new ArrayList<>();
+                tokens = 0;
+            }
+            current.add(user ? new UserMessage(text) : new AiMessage(text));
+            tokens += TokenUtil.estimate(text) + overhead;
+        }
+        if (!current.isEmpty()) {
+            rounds.add(new Round(current, tokens));
+        }
+        return rounds;
+    }
+
+    /**
+     * 用户消息保存的是整个请求的 JSON，只取其中的问题
+     */
+    static String textOf(ChatHistoryDO chatHistoryDO) {
+        String content = chatHistoryDO.getContent();
+        if (chatHistoryDO.getType() != ChatType.USER_MESSAGE || content == null || !content.startsWith("{")) {
+            return content;
+        }
+        try {
+            ChatReq req = JsonUtils.parseObject(content, ChatReq.class);
+            return req != null && req.getMessage() != null ? req.getMessage() : content;
+        } catch (Exception e) {
+            return content;
+        }
+    }
+}
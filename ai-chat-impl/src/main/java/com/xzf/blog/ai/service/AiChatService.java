@@ -1,9 +1,11 @@
 package com.xzf.blog.ai.service;
 
 import com.xzf.blog.ai.api.vo.req.ChatHistoryReq;
+import com.xzf.blog.ai.api.vo.req.ChatHistoryScrollReq;
 import com.xzf.blog.ai.api.vo.req.ChatReq;
 import com.xzf.blog.ai.api.vo.req.RagasReq;
 import com.xzf.blog.ai.api.vo.resp.ChatHistoryRespVO;
+import com.xzf.blog.ai.api.vo.resp.ChatHistoryScrollRespVO;
 import com.xzf.blog.ai.api.vo.resp.RagasRespVO;
 import com.xzf.blog.framework.commons.response.PageResponse;
 import reactor.core.publisher.Flux;
@@ -17,5 +19,7 @@ public interface AiChatService {
 
     PageResponse<ChatHistoryRespVO> getHistoryChat(ChatHistoryReq req);
 
+    Response<ChatHistoryScrollRespVO> scrollHistoryChat(ChatHistoryScrollReq req);
+
     Response<RagasRespVO> ragasQuery(RagasReq req);
 }
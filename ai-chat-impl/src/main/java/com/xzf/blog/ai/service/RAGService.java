@@ -1,19 +1,40 @@
 package com.xzf.blog.ai.service;
 
 import com.xzf.blog.ai.api.vo.req.ArticleReq;
+import com.xzf.blog.ai.api.vo.resp.FileUploadRespVO;
 import dev.langchain4j.data.segment.TextSegment;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Set;
 
 public interface RAGService {
 
-    public boolean uploadFile(List<MultipartFile> files);
+    /**
+     * 知识库文件入库，多个文件并行处理，返回每个文件的结果
+     */
+    public List<FileUploadRespVO> uploadFile(List<MultipartFile> files);
 
+    /**
+     * 增量索引文章：只向量化新增或变化的片段，并删除已不存在的片段，重复调用是幂等的
+     */
     public boolean uploadArticle(ArticleReq req);
 
+    /**
+     * 批量增量索引文章：所有文章的新增片段合并后按批向量化，并一次写入向量库
+     * 同一文章出现多次时以最后一条为准，单篇文章失败不影响其他文章
+     *
+     * @return 索引失败的文章id
+     */
+    public Set<Long> uploadArticles(List<ArticleReq> reqs);
+
     public List<TextSegment> search(Long articleId,String query);
 
     public boolean deleteByArticleId(Long articleId);
 
+    /**
+     * 批量删除文章片段，合并为一次 articleId in [...] 过滤删除
+     */
+    public boolean deleteByArticleIds(List<Long> articleIds);
+
 }
@@ -2,18 +2,30 @@ package com.xzf.blog.ai.service.impl;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.xzf.blog.ai.api.vo.req.ChatHistoryReq;
+import com.xzf.blog.ai.api.vo.req.ChatHistoryScrollReq;
 import com.xzf.blog.ai.api.vo.req.ChatReq;
 import com.xzf.blog.ai.api.vo.req.RagasReq;
 import com.xzf.blog.ai.api.vo.resp.ChatHistoryRespVO;
+import com.xzf.blog.ai.api.vo.resp.ChatHistoryScrollRespVO;
 import com.xzf.blog.ai.api.vo.resp.RagasRespVO;
-import com.xzf.blog.ai.commons.constant.RedisConstants;
 import com.xzf.blog.ai.commons.enums.ChatType;
+import com.xzf.blog.ai.buffer.ChatHistoryWriteBuffer;
+import com.xzf.blog.ai.cache.ChatHistoryCache;
+import com.xzf.blog.ai.cache.ChatRoundCounter;
+import com.xzf.blog.ai.cache.SemanticAnswerCache;
 import com.xzf.blog.ai.config.AbstractModelProperties;
 import com.xzf.blog.ai.config.ChatModelProperties;
 import com.xzf.blog.ai.manager.ChatHistoryManager;
+import com.xzf.blog.ai.metrics.ChatMetrics;
 import com.xzf.blog.ai.model.ChatHistoryDO;
+import com.xzf.blog.ai.prompt.ChatPromptBuilder;
 import com.xzf.blog.ai.service.AiChatService;
 import com.xzf.blog.ai.service.RAGService;
+import com.xzf.blog.ai.strategy.SplitStrategy;
+import com.xzf.blog.ai.summary.ConversationSummarizer;
+import com.xzf.blog.ai.stream.TokenFrameAggregator;
+import com.xzf.blog.ai.util.HistoryCursorUtil;
+import com.xzf.blog.ai.util.TokenUtil;
 import com.xzf.blog.framework.commons.response.PageResponse;
 import com.xzf.blog.framework.commons.util.JsonUtils;
 import com.xzf.framework.biz.context.holder.LoginUserContextHolder;
@@ -26,28 +38,35 @@ import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.utils.Lists;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import com.xzf.blog.framework.commons.response.Response;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import org.springframework.data.redis.core.RedisCallback;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import org.springframework.util.CollectionUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import dev.langchain4j.model.StreamingResponseHandler;
 
 
@@ -55,6 +74,11 @@ import dev.langchain4j.model.StreamingResponseHandler;
 @Service
 public class AiChatServiceImpl implements AiChatService {
 
+    /**
+     * 游标分页单页最大条数
+     */
+    private static final long MAX_SCROLL_SIZE = 100;
+
     @Autowired
     private AbstractModelProperties abstractModelProperties;
 
@@ -67,31 +91,69 @@ public class AiChatServiceImpl implements AiChatService {
     @Autowired
     private StreamingChatLanguageModel streamingChatLanguageModel;
 
-    @Autowired
-    private StringRedisTemplate stringRedisTemplate;
-
     @Autowired
     private ChatHistoryManager chatHistoryManager;
 
     @Autowired
     private RAGService ragService;
 
+    @Autowired
+    private ChatRoundCounter chatRoundCounter;
+
+    @Autowired
+    private ChatHistoryCache chatHistoryCache;
+
+    @Autowired
+    private ChatHistoryWriteBuffer chatHistoryWriteBuffer;
+
+    @Autowired
+    private SemanticAnswerCache semanticAnswerCache;
+
+    @Autowired
+    private ChatMetrics chatMetrics;
+
+    @Autowired
+    private ChatPromptBuilder chatPromptBuilder;
+
+    @Autowired
+    private ConversationSummarizer conversationSummarizer;
+
     @Resource(name = "taskExecutor")
     private ThreadPoolTaskExecutor threadPoolTaskExecutor;
 
+    @Resource(name = "chatExecutor")
+    private AsyncTaskExecutor chatExecutor;
+
+    /**
+     * 虚拟线程模式下对话流水线整体在虚拟线程中执行；线程池模式下仍在订阅线程执行，
+     * 避免流水线线程与各阶段任务争抢同一个线程池
+     */
+    private Scheduler chatScheduler;
+
+    @Autowired
+    private List<SplitStrategy> splitStrategies;
+
     @Value("${system.chat.opening-remark}")
     private String openingRemark;
 
 
     public Response<String> generateAbstract(String article) {
         try {
-            String systemPrompt = abstractModelProperties.getSystemPrompt();
-
-            // 使用DeepSeek模型生成摘要
-            ChatResponse chatResponse = chatLanguageModel.chat(ChatRequest.builder().messages(List.of(new SystemMessage(systemPrompt), new UserMessage(article))).build());
-            String content = chatResponse.aiMessage().text();
+            long start = System.currentTimeMillis();
+            AbstractModelProperties.MapReduce config = abstractModelProperties.getMapReduce();
+            int tokens = TokenUtil.estimate(article);
+            String content;
+            if (config.isEnabled() && tokens > config.getThresholdTokens()) {
+                // 长文章分块并行摘要后再合并，耗时取决于分块大小而不是文章长度
+                content = mapReduceAbstract(article, config, 1);
+                chatMetrics.recordStage(ChatMetrics.PIPELINE_ABSTRACT, "mapReduce", ChatMetrics.OUTCOME_SUCCESS,
+                        TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - start));
+            } else {
+                // 使用DeepSeek模型生成摘要
+                content = chatMetrics.timeStage(ChatMetrics.PIPELINE_ABSTRACT, "direct", () -> summarize(abstractModelProperties.getSystemPrompt(), article));
+            }
 
-            log.info("文章内容长度:{}, 生成摘要:{}", article.length(), content);
+            log.info("文章内容长度:{}, 估算token数:{}, 耗时:{}ms, 生成摘要:{}", article.length(), tokens, System.currentTimeMillis() - start, content);
             return Response.success(content);
         } catch (Exception e) {
             log.error("生成摘要失败", e);
@@ -99,86 +161,268 @@ public class AiChatServiceImpl implements AiChatService {
         }
     }
 
+    /**
+     * 按切分策略切分文章并合并为分块，分块在线程池中并行摘要（并发数受限），最后合并各分块摘要；
+     * 合并后的内容仍超过阈值且未达到最大层数时继续分块摘要。
+     * 单个分块失败时重试一次，仍失败或超时的分块跳过，只要有分块成功就继续合并
+     *
+     * @param depth 当前层数，从 1 开始
+     */
+    private String mapReduceAbstract(String article, AbstractModelProperties.MapReduce config, int depth) throws InterruptedException {
+        List<String> chunks = TokenUtil.pack(getSplitStrategy(config.getSplitStrategy()).splitToStream(article), config.getChunkTokens());
+        log.info("长文章分块摘要, 层数: {}, 分块数: {}", depth, chunks.size());
+
+        // 提交前获取许可，由调用线程等待空闲名额，不占用线程池线程；
+        // 许可在模型调用真正结束时归还，超时后仍在执行的调用继续计入并发数
+        Semaphore permits = new Semaphore(config.getMaxConcurrency());
+        List<CompletableFuture<String>> futures = new ArrayList<>(chunks.size());
+        List<Future<?>> tasks = new ArrayList<>(chunks.size());
+        for (String chunk : chunks) {
+            permits.acquire();
+            CompletableFuture<String> future = new CompletableFuture<>();
+            tasks.add(threadPoolTaskExecutor.submit(() -> {
+                try {
+                    future.complete(chatMetrics.timeStage(ChatMetrics.PIPELINE_ABSTRACT, "map", () -> summarizeChunk(chunk, config)));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            }));
+            futures.add(future.orTimeout(config.getChunkTimeoutSeconds(), TimeUnit.SECONDS));
+        }
+        List<String> partials = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                partials.add(String.format("第%d部分:%s", i + 1, futures.get(i).join()));
+            } catch (CompletionException e) {
+                // 超时的调用中断执行线程，跳过该分块
+                tasks.get(i).cancel(true);
+                log.warn("分块摘要失败，跳过第{}部分", i + 1, e.getCause());
+            }
+        }
+        if (partials.isEmpty()) {
+            throw new IllegalStateException("全部分块摘要失败, 分块数: " + chunks.size());
+        }
+
+        String merged = String.join("\n", partials);
+        if (chunks.size() > 1 && TokenUtil.estimate(merged) > config.getThresholdTokens() && depth < config.getMaxDepth()) {
+            return mapReduceAbstract(merged, config, depth + 1);
+        }
+        return summarize(abstractModelProperties.getSystemPrompt(), config.getReducePrefix() + merged);
+    }
+
+    /**
+     * 分块摘要，失败时重试一次
+     */
+    private String summarizeChunk(String chunk, AbstractModelProperties.MapReduce config) {
+        try {
+            return summarize(config.getMapPrompt(), chunk);
+        } catch (RuntimeException e) {
+            log.warn("分块摘要失败，重试一次", e);
+            return summarize(config.getMapPrompt(), chunk);
+        }
+    }
+
+    private String summarize(String systemPrompt, String text) {
+        ChatResponse chatResponse = chatLanguageModel.chat(ChatRequest.builder().messages(List.of(new SystemMessage(systemPrompt), new UserMessage(text))).build());
+        chatMetrics.recordTokenUsage(ChatMetrics.PIPELINE_ABSTRACT, chatResponse.tokenUsage());
+        return chatResponse.aiMessage().text();
+    }
+
+    private SplitStrategy getSplitStrategy(String name) {
+        for (SplitStrategy strategy : splitStrategies) {
+            if (strategy.getName().equals(name)) return strategy;
+        }
+        throw new IllegalArgumentException("未知的切分策略: " + name);
+    }
+
+    @PostConstruct
+    public void init() {
+        chatScheduler = chatModelProperties.getExecution().getMode() == ChatModelProperties.Execution.Mode.VIRTUAL
+                ? Schedulers.fromExecutor(chatExecutor)
+                : Schedulers.immediate();
+    }
+
     @Override
     public Flux<String> streamingChat(ChatReq req) {
-        return Flux.create(sink -> {
+        // 在请求线程中读取登录用户，流水线可能在其他线程执行
+        Long userId = LoginUserContextHolder.getUserId();
+        // 提问时间取请求到达时间，回答时间取完成时间
+        LocalDateTime askedAt = LocalDateTime.now();
+        return Flux.<String>create(sink -> {
+            long requestStart = System.nanoTime();
+            ChatModelProperties.Frame frameConfig = chatModelProperties.getFrame();
+            TokenFrameAggregator frames = frameConfig.isEnabled()
+                    ? new TokenFrameAggregator(sink, frameConfig.getMaxFrameBytes(), frameConfig.getMaxDelayMillis(), Schedulers.parallel())
+                    : new TokenFrameAggregator(sink, 0, 0, Schedulers.parallel());
+            boolean roundAcquired = false;
             try {
                 String conversationKey = req.getConversationKey();
                 String message = req.getMessage();
-                Long userId = LoginUserContextHolder.getUserId();
 
-                int maxRound = chatModelProperties.getMaxRound();
-                int historyRound = chatModelProperties.getHistoryRound();
-                long expireSeconds = chatModelProperties.getExpireSeconds();
+                // 较早的轮次合并进摘要，不再需要限制轮次时 maxRound 配置为 0
+                int maxRound = chatModelProperties.getMaxRound() > 0 ? chatModelProperties.getMaxRound() : Integer.MAX_VALUE;
+                // 一轮对话包含一问一答两条消息
+                int historySize = chatModelProperties.getHistoryRound() * 2;
                 String chatSystemPrompt = chatModelProperties.getChatSystemPrompt();
 
-                String redisKey = RedisConstants.getChatConversationKey(userId, conversationKey);
-                Long round = chatHistoryManager.getRound(userId, conversationKey);
-                if (round > maxRound) {
-                    sink.error(new RuntimeException("对话轮次过多，请重新开始对话"));
+                ChatModelProperties.Stage stage = chatModelProperties.getStage();
+
+                // 轮次校验、历史记录查询、RAG检索互不依赖，并发执行
+                // 超时降级时结果为null，视为放行但不归还轮次
+                CompletableFuture<Boolean> roundFuture = supplyStage("round",
+                        () -> chatRoundCounter.tryAcquire(userId, conversationKey, maxRound), stage.getRoundTimeoutMillis(), null);
+                CompletableFuture<ChatHistoryCache.Window> historyFuture = supplyStage("history",
+                        () -> chatHistoryCache.get(userId, conversationKey, historySize, historyCacheSize()), stage.getHistoryTimeoutMillis(), ChatHistoryCache.Window.empty());
+                CompletableFuture<List<String>> contextFuture = supplyStage("retrieval",
+                        () -> ragService.search(req.getArticleId(), message).stream().map(TextSegment::text).toList(),
+                        stage.getRetrievalTimeoutMillis(), Collections.emptyList());
+                // 只有新会话会回放缓存答案，已有历史的会话不查询语义缓存
+                CompletableFuture<SemanticAnswerCache.Entry> cachedAnswerFuture = historyFuture.thenCompose(window -> window.isNewConversation()
+                        ? supplyStage("semanticCache", () -> semanticAnswerCache.get(req.getArticleId(), message),
+                                chatModelProperties.getSemanticCache().getLookupTimeoutMillis(), null)
+                        : CompletableFuture.completedFuture(null));
+
+                Boolean acquired = roundFuture.join();
+                if (Boolean.FALSE.equals(acquired)) {
+                    chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, "total", "rejected", System.nanoTime() - requestStart);
+                    frames.error(new RuntimeException("对话轮次过多，请重新开始对话"));
                     return;
                 }
-
-                // 查询历史对话记录
-                List<String> chatCache = stringRedisTemplate.opsForList().range(redisKey, 0, historyRound);
-                List<ChatHistoryDO> chatHistoryDOList = null;
-                if (chatCache != null && !chatCache.isEmpty()) {
-                    // 从缓存中获取历史对话记录
-                    chatHistoryDOList = chatCache.stream().map(str -> JsonUtils.parseObject(str, ChatHistoryDO.class)).collect(Collectors.toList());
-                } else {
-                    // 查询db中的历史对话记录
-                    chatHistoryDOList = chatHistoryManager.getHistory(userId, conversationKey, historyRound);
+                roundAcquired = Boolean.TRUE.equals(acquired);
+
+                // 摘要状态依赖占用后的轮次计数，在轮次校验之后读取
+                ConversationSummarizer.Summary summary = supplyStage("summary",
+                        () -> conversationSummarizer.get(userId, conversationKey), stage.getHistoryTimeoutMillis(), ConversationSummarizer.Summary.empty()).join();
+
+                // 查询历史对话记录，去掉已合并进摘要的轮次
+                ChatHistoryCache.Window historyWindow = historyFuture.join();
+                List<ChatHistoryDO> chatHistoryDOList = summary.uncovered(historyWindow.messages());
+
+                // 新会话的问题不依赖上下文，命中语义缓存时直接回放答案
+                boolean newConversation = historyWindow.isNewConversation();
+                if (newConversation) {
+                    SemanticAnswerCache.Entry cachedAnswer = cachedAnswerFuture.join();
+                    if (cachedAnswer != null) {
+                        semanticAnswerCache.recordReplay(cachedAnswer);
+                        chatMetrics.recordTimeToFirstToken("cache", System.nanoTime() - requestStart);
+                        replay(frames, cachedAnswer.getAnswer());
+                        saveTurn(req, userId, askedAt, historyWindow, cachedAnswer.getAnswer());
+                        frames.complete();
+                        chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, "total", "cached", System.nanoTime() - requestStart);
+                        return;
+                    }
                 }
 
                 // RAG检索获取片段
-                List<String> contextList = ragService.search(req.getArticleId(), message).stream().map(TextSegment::text).toList();
-                log.info("query:{},检索到的片段:{}", req.getMessage(), JsonUtils.toJsonString(contextList));
-                String segments = String.join(",", contextList);
-                chatSystemPrompt += segments;
+                List<String> retrieved = contextFuture.join();
+                log.info("query:{},检索到的片段:{}", req.getMessage(), JsonUtils.toJsonString(retrieved));
 
-                // 构建消息列表
-                List<ChatMessage> messages = chatHistoryDOList.stream().map(chatHistoryDO -> new UserMessage(JsonUtils.toJsonString(chatHistoryDO))).collect(Collectors.toList());
-                messages.add(new UserMessage("用户本次提问问题:" + req.getMessage()));
-                messages.add(new SystemMessage(chatSystemPrompt));
+                // 构建消息列表，历史与片段按 token 预算裁剪
+                ChatPromptBuilder.ChatPrompt prompt = chatPromptBuilder.build(chatSystemPrompt, summary.text(), chatHistoryDOList, retrieved, message, chatModelProperties.getPrompt());
+                List<ChatMessage> messages = prompt.messages();
+                List<String> contextList = prompt.segments();
+                log.debug("提示词估算token数:{}, 片段数:{}/{}, 历史轮数:{}", prompt.estimatedTokens(), contextList.size(), retrieved.size(), prompt.historyRounds());
 
-                final List<ChatHistoryDO> finalChatHistoryDOList = chatHistoryDOList;
                 // 使用StreamingResponseHandler处理流式响应
+                long generateStart = System.nanoTime();
                 streamingChatLanguageModel.generate(messages, new StreamingResponseHandler() {
+
+                    private long firstTokenAt;
+
                     @Override
                     public void onNext(String token) {
-                        sink.next(token);
+                        if (firstTokenAt == 0) {
+                            firstTokenAt = System.nanoTime();
+                            chatMetrics.recordTimeToFirstToken("model", firstTokenAt - requestStart);
+                        }
+                        frames.next(token);
                     }
 
                     @Override
                     public void onComplete(dev.langchain4j.model.output.Response response) {
-                        log.info("用户提问:{}, 模型回答:{}，使用token数:{}", req.getMessage(), response.content(), response.tokenUsage().totalTokenCount());
-                        // 保存对话记录到数据库
-                        ChatHistoryDO question = ChatHistoryDO.builder().accountId(userId).conversationKey(conversationKey).type(ChatType.USER_MESSAGE).content(JsonUtils.toJsonString(req)).build();
-                        ChatHistoryDO answer = ChatHistoryDO.builder().accountId(userId).conversationKey(conversationKey).type(ChatType.AI_MESSAGE).content(response.content().toString()).build();
-                        chatHistoryManager.save(question);
-                        chatHistoryManager.save(answer);
-
-                        // 异步进行缓存加载
-                        finalChatHistoryDOList.add(question);
-                        finalChatHistoryDOList.add(answer);
-
-                        final List<String> cacheList = finalChatHistoryDOList.stream().map(JsonUtils::toJsonString).collect(Collectors.toList());
-                        loadCacheAsync(redisKey, cacheList, expireSeconds);
-                        sink.complete();
+                        try {
+                            long now = System.nanoTime();
+                            chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, "generate", ChatMetrics.OUTCOME_SUCCESS, now - generateStart);
+                            chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, "total", ChatMetrics.OUTCOME_SUCCESS, now - requestStart);
+                            chatMetrics.recordTokenUsage(ChatMetrics.PIPELINE_CHAT, response.tokenUsage());
+                            if (response.tokenUsage() != null && firstTokenAt != 0) {
+                                chatMetrics.recordGenerationRate(response.tokenUsage().outputTokenCount(), now - firstTokenAt);
+                            }
+                            log.info("用户提问:{}, 模型回答:{}，使用token数:{}", req.getMessage(), response.content(),
+                                    response.tokenUsage() == null ? null : response.tokenUsage().totalTokenCount());
+                            String answer = response.content().text();
+                            saveTurn(req, userId, askedAt, historyWindow, answer);
+                            if (summary.needsCompaction(chatModelProperties.getSummary())) {
+                                conversationSummarizer.compactAsync(userId, conversationKey);
+                            }
+                            if (newConversation) {
+                                int tokens = response.tokenUsage() == null ? 0 : response.tokenUsage().totalTokenCount();
+                                executeQuietly("semanticCache", () -> semanticAnswerCache.put(req.getArticleId(), message, answer, contextList, tokens));
+                            }
+                        } finally {
+                            // 持久化等后续步骤出错时也要结束流，避免客户端一直等待
+                            frames.complete();
+                        }
                     }
 
                     @Override
                     public void onError(Throwable throwable) {
+                        long now = System.nanoTime();
+                        chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, "generate", ChatMetrics.OUTCOME_ERROR, now - generateStart);
+                        chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, "total", ChatMetrics.OUTCOME_ERROR, now - requestStart);
                         log.error("流式对话发生错误", throwable);
-                        sink.error(throwable);
+                        if (Boolean.TRUE.equals(acquired)) {
+                            chatRoundCounter.release(userId, conversationKey);
+                        }
+                        frames.error(throwable);
                     }
                 });
 
             } catch (Exception e) {
                 log.error("流式对话初始化失败", e);
-                sink.error(e);
+                chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, "total", ChatMetrics.OUTCOME_ERROR, System.nanoTime() - requestStart);
+                if (roundAcquired) {
+                    chatRoundCounter.release(userId, req.getConversationKey());
+                }
+                frames.error(e);
+            }
+        }).subscribeOn(chatScheduler);
+    }
+
+    /**
+     * 保存一轮对话：写入缓冲异步批量写库，并异步追加到历史窗口缓存
+     */
+    private void saveTurn(ChatReq req, Long userId, LocalDateTime askedAt, ChatHistoryCache.Window historyWindow, String content) {
+        String conversationKey = req.getConversationKey();
+        ChatHistoryDO question = ChatHistoryDO.builder().accountId(userId).conversationKey(conversationKey).type(ChatType.USER_MESSAGE).content(JsonUtils.toJsonString(req)).createTime(askedAt).build();
+        ChatHistoryDO answer = ChatHistoryDO.builder().accountId(userId).conversationKey(conversationKey).type(ChatType.AI_MESSAGE).content(content).createTime(LocalDateTime.now()).build();
+        chatHistoryWriteBuffer.add(List.of(question, answer));
+
+        executeQuietly("historyCache", () -> chatHistoryCache.append(userId, conversationKey, historyWindow,
+                List.of(question, answer), historyCacheSize(), chatModelProperties.getExpireSeconds()));
+    }
+
+    private int historyCacheSize() {
+        return Math.max(chatModelProperties.getHistoryCacheSize(), chatModelProperties.getHistoryRound() * 2);
+    }
+
+    /**
+     * 将缓存答案按固定字符数切分，模拟流式输出
+     */
+    private void replay(TokenFrameAggregator frames, String answer) {
+        int chunkSize = Math.max(1, chatModelProperties.getSemanticCache().getReplayChunkSize());
+        int start = 0;
+        while (start < answer.length()) {
+            int end = Math.min(answer.length(), start + chunkSize);
+            // 不拆开代理对
+            if (end < answer.length() && Character.isHighSurrogate(answer.charAt(end - 1))) {
+                end++;
             }
-        });
+            frames.next(answer.substring(start, end));
+            start = end;
+        }
     }
 
     @Override
@@ -187,23 +431,45 @@ public class AiChatServiceImpl implements AiChatService {
         String query = req.getQuery();
         String chatSystemPrompt = chatModelProperties.getChatSystemPrompt();
 
-        List<ChatMessage> messages = new ArrayList<>();
-        messages.add(new UserMessage("用户本次提问问题:" + query));
+        // hyde 模式的答案依赖假设文档，不走语义缓存
+        if (!hyde) {
+            SemanticAnswerCache.Entry cachedAnswer = chatMetrics.timeStage(ChatMetrics.PIPELINE_RAGAS, "semanticCache",
+                    () -> semanticAnswerCache.get(null, req.getQuery()));
+            if (cachedAnswer != null) {
+                semanticAnswerCache.recordReplay(cachedAnswer);
+                return Response.success(RagasRespVO.builder()
+                        .answer(cachedAnswer.getAnswer())
+                        .contexts(cachedAnswer.getContexts())
+                        .build());
+            }
+        }
+
         // 如果使用hyde技术，拿ai对话结果检索
         if (hyde) {
-            AiMessage aiMessage = chatLanguageModel.generate(messages).content();
-            query = aiMessage.text();
+            List<ChatMessage> messages = List.of(new UserMessage(query));
+            dev.langchain4j.model.output.Response<AiMessage> hypothetical = chatMetrics.timeStage(ChatMetrics.PIPELINE_RAGAS, "hyde",
+                    () -> chatLanguageModel.generate(messages));
+            chatMetrics.recordTokenUsage(ChatMetrics.PIPELINE_RAGAS, hypothetical.tokenUsage());
+            query = hypothetical.content().text();
             log.info("问题:{} ,Hyde技术生成文本:{}", req.getQuery(), query);
         }
 
         // RAG检索获取片段
-        List<String> contexts = ragService.search(null, query).stream().map(TextSegment::text).toList();
-        log.info("query:{},检索到的片段:{}", req.getQuery(), JsonUtils.toJsonString(contexts));
-        String segments = String.join(",", contexts);
-        chatSystemPrompt += segments;
-        // 构建消息列表
-        messages.add(new SystemMessage(chatSystemPrompt));
-        AiMessage answerMessage = chatLanguageModel.generate(messages).content();
+        String retrievalQuery = query;
+        List<String> retrieved = chatMetrics.timeStage(ChatMetrics.PIPELINE_RAGAS, "retrieval",
+                () -> ragService.search(null, retrievalQuery).stream().map(TextSegment::text).toList());
+        log.info("query:{},检索到的片段:{}", req.getQuery(), JsonUtils.toJsonString(retrieved));
+        // 构建消息列表，返回实际放入提示词的片段
+        ChatPromptBuilder.ChatPrompt prompt = chatPromptBuilder.build(chatSystemPrompt, null, List.of(), retrieved, req.getQuery(), chatModelProperties.getPrompt());
+        List<String> contexts = prompt.segments();
+        dev.langchain4j.model.output.Response<AiMessage> generated = chatMetrics.timeStage(ChatMetrics.PIPELINE_RAGAS, "generate",
+                () -> chatLanguageModel.generate(prompt.messages()));
+        chatMetrics.recordTokenUsage(ChatMetrics.PIPELINE_RAGAS, generated.tokenUsage());
+        AiMessage answerMessage = generated.content();
+        if (!hyde) {
+            int tokens = generated.tokenUsage() == null ? 0 : generated.tokenUsage().totalTokenCount();
+            semanticAnswerCache.put(null, req.getQuery(), answerMessage.text(), contexts, tokens);
+        }
 
         RagasRespVO vo = RagasRespVO.builder()
                 .answer(answerMessage.text())
@@ -220,7 +486,15 @@ public class AiChatServiceImpl implements AiChatService {
         Long userId = LoginUserContextHolder.getUserId();
         String conversationKey = req.getConversationKey();
 
-        Page<ChatHistoryDO> chatHistoryDOPage = chatHistoryManager.selectPageList(current, size, conversationKey, userId);
+        // 打开对话面板时查询的首页通常已在会话历史缓存中，缓存不能覆盖时再查数据库
+        ChatHistoryCache.Latest latest = current != null && current == 1 ? chatHistoryCache.latest(userId, conversationKey, size.intValue()) : null;
+        Page<ChatHistoryDO> chatHistoryDOPage;
+        if (latest != null) {
+            chatHistoryDOPage = new Page<>(current, size, latest.total());
+            chatHistoryDOPage.setRecords(latest.records());
+        } else {
+            chatHistoryDOPage = chatHistoryManager.selectPageList(current, size, conversationKey, userId);
+        }
         List<ChatHistoryDO> records = chatHistoryDOPage.getRecords();
 
         List<ChatHistoryRespVO> vos = null;
@@ -237,19 +511,107 @@ public class AiChatServiceImpl implements AiChatService {
         return PageResponse.success(chatHistoryDOPage, vos);
     }
 
-    private void loadCacheAsync(String redisKey, List<String> cacheList, long expireSeconds) {
-        threadPoolTaskExecutor.execute(() -> {
-            // 先删除全部，再加载list到缓存中
-            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
-                byte[] keyBytes = redisKey.getBytes(StandardCharsets.UTF_8);
-                connection.del(keyBytes);
-                for (String item : cacheList) {
-                    connection.rPush(keyBytes, item.getBytes(StandardCharsets.UTF_8));
+    @Override
+    public Response<ChatHistoryScrollRespVO> scrollHistoryChat(ChatHistoryScrollReq req) {
+        Long userId = LoginUserContextHolder.getUserId();
+        Long beforeId;
+        try {
+            beforeId = HistoryCursorUtil.decode(req.getCursor());
+        } catch (IllegalArgumentException e) {
+            log.warn("对话历史分页游标无效: {}", req.getCursor());
+            return Response.fail("分页游标无效，请刷新后重试");
+        }
+        int size = (int) Math.min(Math.max(req.getSize() == null ? 10L : req.getSize(), 1L), MAX_SCROLL_SIZE);
+
+        // 多查一条判断是否还有更早的消息，代替 COUNT 查询；首页优先从会话历史缓存读取
+        ChatHistoryCache.Latest latest = beforeId == null ? chatHistoryCache.latest(userId, req.getConversationKey(), size + 1) : null;
+        List<ChatHistoryDO> records = latest != null
+                ? latest.records()
+                : chatHistoryManager.scrollHistory(userId, req.getConversationKey(), beforeId, size + 1);
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = records.subList(0, size);
+        }
+
+        List<ChatHistoryRespVO> vos;
+        if (!records.isEmpty()) {
+            vos = records.stream().map(chatHistoryDO -> {
+                ChatHistoryRespVO vo = new ChatHistoryRespVO();
+                BeanUtils.copyProperties(chatHistoryDO, vo);
+                return vo;
+            }).toList();
+        } else if (beforeId == null) {
+            // 新会话与分页查询一致，返回开场白
+            vos = Collections.singletonList(ChatHistoryRespVO.builder().type(ChatType.AI_MESSAGE).createTime(LocalDateTime.now()).content(openingRemark).build());
+        } else {
+            vos = Collections.emptyList();
+        }
+
+        return Response.success(ChatHistoryScrollRespVO.builder()
+                .records(vos)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? HistoryCursorUtil.encode(records.get(records.size() - 1).getId()) : null)
+                .build());
+    }
+
+    /**
+     * 在线程池中执行对话前置阶段，超时、失败或线程池已满时返回降级值
+     * 超时后取消任务并中断执行线程，避免超时的任务继续占用线程池
+     */
+    private <T> CompletableFuture<T> supplyStage(String stage, Supplier<T> supplier, long timeoutMillis, T fallback) {
+        // 耗时包含线程池排队时间
+        long start = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = chatExecutor.submit(() -> {
+                try {
+                    result.complete(supplier.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
                 }
-                connection.expire(keyBytes, expireSeconds);
-                return null;
             });
-        });
+        } catch (RejectedExecutionException e) {
+            chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, stage, ChatMetrics.OUTCOME_REJECTED, System.nanoTime() - start);
+            log.warn("对话线程池已满，阶段[{}]直接降级", stage);
+            return CompletableFuture.completedFuture(fallback);
+        }
+        return result
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((value, e) -> {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof TimeoutException) {
+                        task.cancel(true);
+                    }
+                    chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, stage,
+                            cause == null ? ChatMetrics.OUTCOME_SUCCESS : cause instanceof TimeoutException ? ChatMetrics.OUTCOME_TIMEOUT : ChatMetrics.OUTCOME_ERROR,
+                            System.nanoTime() - start);
+                })
+                .exceptionally(e -> {
+                    // 下游阶段收到的异常包装在 CompletionException 中
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof TimeoutException) {
+                        log.warn("对话阶段[{}]超时({}ms)，降级继续", stage, timeoutMillis);
+                    } else {
+                        log.warn("对话阶段[{}]执行失败，降级继续", stage, cause);
+                    }
+                    return fallback;
+                });
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * 提交不影响本次响应的异步任务，对话线程池已满时丢弃
+     */
+    private void executeQuietly(String task, Runnable runnable) {
+        try {
+            chatExecutor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            log.warn("对话线程池已满，丢弃异步任务[{}]", task);
+        }
     }
 
 
@@ -1,42 +1,67 @@
 package com.xzf.blog.ai.service.impl;
 
 import com.xzf.blog.ai.api.vo.req.ArticleReq;
+import com.xzf.blog.ai.api.vo.resp.FileUploadRespVO;
+import com.xzf.blog.ai.cache.ArticleVectorCache;
+import com.xzf.blog.ai.cache.QueryEmbeddingCache;
+import com.xzf.blog.ai.cache.SemanticAnswerCache;
+import com.xzf.blog.ai.config.EmbeddingModelProperties;
 import com.xzf.blog.ai.config.EmbeddingStoreProperties;
+import com.xzf.blog.ai.config.RetrievalProperties;
+import com.xzf.blog.ai.lexical.LexicalIndex;
+import com.xzf.blog.ai.lexical.LexicalTokenizer;
+import com.xzf.blog.ai.metrics.ChatMetrics;
 import com.xzf.blog.ai.service.RAGService;
-import com.xzf.blog.ai.strategy.SplitStrategy;
+import com.xzf.blog.ai.store.ArticleEmbeddingStore;
+import com.xzf.blog.ai.strategy.ArticleSegmenter;
+import com.xzf.blog.ai.util.SentenceWindowSplitter;
 import com.xzf.blog.ai.util.SlidingWindowUtil;
 import com.xzf.blog.framework.commons.util.JsonUtils;
-import dev.langchain4j.data.document.Document;
-import dev.langchain4j.data.document.DocumentSplitter;
-import dev.langchain4j.data.document.parser.apache.tika.ApacheTikaDocumentParser;
-import dev.langchain4j.data.document.splitter.DocumentSplitters;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
-import dev.langchain4j.store.embedding.EmbeddingSearchResult;
-import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
 import dev.langchain4j.store.embedding.filter.comparison.IsNotEqualTo;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.ParsingReader;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
 public class RAGServiceImpl implements RAGService {
 
     @Resource
-    private EmbeddingStore<TextSegment> embeddingStore;
+    private ArticleEmbeddingStore embeddingStore;
 
     @Resource
     private EmbeddingModel embeddingModel;
@@ -44,107 +69,370 @@ public class RAGServiceImpl implements RAGService {
     @Resource
     private EmbeddingStoreProperties embeddingStoreProperties;
 
-    private static final String ARTICLE_ID = "articleId";
+    @Resource
+    private QueryEmbeddingCache queryEmbeddingCache;
 
-    @Value("${article.split.strategy:slidingWindow}")
-    private String splitStrategy;
+    @Resource
+    private SemanticAnswerCache semanticAnswerCache;
 
     @Resource
-    private List<SplitStrategy> splitStrategies;
+    private ArticleVectorCache articleVectorCache;
 
+    private static final String ARTICLE_ID = ArticleEmbeddingStore.ARTICLE_ID;
 
-    @Override
-    public boolean uploadFile(List<MultipartFile> files) {
-        log.info("上传知识库开始");
-
-        for (MultipartFile file : files) {
-            try (InputStream inputStream = file.getInputStream()) {
-                // 使用 Tika 解析文档
-                Document document = new ApacheTikaDocumentParser().parse(inputStream);
-                DocumentSplitter splitter = DocumentSplitters.recursive(300, 10);
-                List<TextSegment> segments = splitter.split(document);
-                /*使用向量模型处理返回向量数据*/
-                List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+    private static final String SEGMENT_ID = ArticleSegmenter.SEGMENT_ID;
+
+    private static final String FILE_NAME = "fileName";
+
+    /**
+     * AutoDetectParser 线程安全，所有文件共用
+     */
+    private final Parser documentParser = new AutoDetectParser();
+
+    @Resource
+    private EmbeddingModelProperties embeddingModelProperties;
+
+    @Resource(name = "ingestExecutor")
+    private ThreadPoolTaskExecutor ingestExecutor;
+
+    @Resource(name = "parseExecutor")
+    private Executor parseExecutor;
+
+    @Resource
+    private ArticleSegmenter articleSegmenter;
+
+    @Resource
+    private LexicalIndex lexicalIndex;
+
+    @Resource
+    private RetrievalProperties retrievalProperties;
+
+    @Resource(name = "retrievalExecutor")
+    private AsyncTaskExecutor retrievalExecutor;
 
-                /*存入向量数据库（使用注入的 Milvus embeddingStore）*/
-                embeddingStore.addAll(embeddings, segments);
-                log.info("上传知识库完成，共存入 {} 个片段", segments.size());
+    @Resource
+    private ChatMetrics chatMetrics;
+
+
+    @Override
+    public List<FileUploadRespVO> uploadFile(List<MultipartFile> files) {
+        log.info("上传知识库开始, 文件数: {}", files.size());
+        // 文件之间互不影响，并行入库，单个文件失败不影响其他文件
+        List<CompletableFuture<FileUploadRespVO>> futures = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> ingestFile(file), ingestExecutor))
+                .toList();
+        List<FileUploadRespVO> results = futures.stream().map(CompletableFuture::join).toList();
+        long successCount = results.stream().filter(FileUploadRespVO::isSuccess).count();
+        log.info("上传知识库完成, 成功: {}, 失败: {}", successCount, results.size() - successCount);
+        return results;
+    }
 
-            } catch (IOException e) {
-                log.error("文件上传失败: {}", file.getOriginalFilename(), e);
-                return false;
+    /**
+     * 流水线入库：Tika 边解析边输出文本，切分器按需读取生成片段，攒满一批后向量化并写入向量库，
+     * 内存中只保留当前窗口和一批片段，与文件大小无关
+     */
+    private FileUploadRespVO ingestFile(MultipartFile file) {
+        long start = System.currentTimeMillis();
+        String fileName = file.getOriginalFilename();
+        int batchSize = embeddingModelProperties.getIngest().getBatchSize();
+        int segmentCount = 0;
+        // 解析在有界的 parseExecutor 中进行，默认构造会为每个文件新建一个线程
+        try (InputStream inputStream = file.getInputStream();
+             Reader reader = new ParsingReader(documentParser, inputStream, new Metadata(), new ParseContext(), parseExecutor)) {
+            Iterator<String> windows = SentenceWindowSplitter.iterator(reader, SentenceWindowSplitter.WINDOW_SIZE,
+                    SentenceWindowSplitter.STEP_SIZE, SentenceWindowSplitter.TOLERANCE);
+            List<TextSegment> batch = new ArrayList<>(batchSize);
+            while (windows.hasNext()) {
+                TextSegment segment = TextSegment.from(windows.next());
+                if (fileName != null) {
+                    segment.metadata().put(FILE_NAME, fileName);
+                }
+                batch.add(segment);
+                if (batch.size() >= batchSize) {
+                    segmentCount += storeBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
             }
+            segmentCount += storeBatch(batch);
+
+            long cost = System.currentTimeMillis() - start;
+            log.info("文件入库完成: {}, 片段数: {}, 耗时: {}ms", fileName, segmentCount, cost);
+            return FileUploadRespVO.builder().fileName(fileName).success(true).segmentCount(segmentCount).costMillis(cost).build();
+        } catch (Exception e) {
+            // 已写入的批次保留，返回失败前写入的片段数
+            log.error("文件入库失败: {}, 已写入片段数: {}", fileName, segmentCount, e);
+            return FileUploadRespVO.builder().fileName(fileName).success(false).segmentCount(segmentCount)
+                    .costMillis(System.currentTimeMillis() - start).errorMessage(e.getMessage()).build();
         }
-        return true;
+    }
+
+    private int storeBatch(List<TextSegment> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        /*使用向量模型处理返回向量数据*/
+        List<Embedding> embeddings = embeddingModel.embedAll(batch).content();
+        embeddingStore.addAll(embeddings, batch);
+        return batch.size();
     }
 
     @Override
     public boolean uploadArticle(ArticleReq req) {
+        return uploadArticles(List.of(req)).isEmpty();
+    }
+
+    /**
+     * 单篇文章的增量索引计划
+     *
+     * @param segmentCount 切分后的片段总数
+     * @param addIds       需要重新向量化写入的片段id
+     * @param staleIds     已不存在、需要删除的片段id
+     */
+    private record ArticleIndexPlan(Long articleId, int segmentCount, List<String> addIds,
+                                    List<TextSegment> addSegments, List<String> staleIds) {
+    }
+
+    @Override
+    public Set<Long> uploadArticles(List<ArticleReq> reqs) {
+        // 同一文章出现多次时以最后一条为准
+        Map<Long, ArticleReq> latest = new LinkedHashMap<>();
+        for (ArticleReq req : reqs) {
+            latest.remove(req.getArticleId());
+            latest.put(req.getArticleId(), req);
+        }
+
+        Set<Long> failed = new HashSet<>();
+        List<ArticleIndexPlan> plans = new ArrayList<>(latest.size());
+        long planStart = System.nanoTime();
+        for (ArticleReq req : latest.values()) {
+            try {
+                plans.add(plan(req));
+            } catch (Exception e) {
+                log.error("文章切分或查询已有片段失败, articleId: {}", req.getArticleId(), e);
+                failed.add(req.getArticleId());
+            }
+        }
+        chatMetrics.recordStage(ChatMetrics.PIPELINE_INGEST, "plan", ChatMetrics.OUTCOME_SUCCESS, System.nanoTime() - planStart);
+
+        // 所有文章的新增片段合并后按批向量化，某一批失败只影响该批涉及的文章
+        List<TextSegment> pending = new ArrayList<>();
+        List<Long> owners = new ArrayList<>();
+        for (ArticleIndexPlan plan : plans) {
+            pending.addAll(plan.addSegments());
+            plan.addSegments().forEach(segment -> owners.add(plan.articleId()));
+        }
+        Embedding[] vectors = new Embedding[pending.size()];
+        int batchSize = embeddingModelProperties.getIngest().getBatchSize();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, pending.size());
+            List<TextSegment> batch = pending.subList(from, to);
+            try {
+                /*使用向量模型处理返回向量数据*/
+                List<Embedding> embeddings = chatMetrics.timeStage(ChatMetrics.PIPELINE_INGEST, "embed",
+                        () -> embeddingModel.embedAll(batch).content());
+                for (int i = from; i < to; i++) {
+                    vectors[i] = embeddings.get(i - from);
+                }
+            } catch (Exception e) {
+                Set<Long> batchOwners = new HashSet<>(owners.subList(from, to));
+                log.error("批量向量化失败, 涉及文章: {}", batchOwners, e);
+                failed.addAll(batchOwners);
+            }
+        }
+
+        // 向量化成功的文章一次写入向量库
+        List<ArticleIndexPlan> succeeded = plans.stream().filter(plan -> !failed.contains(plan.articleId())).toList();
+        List<String> addIds = new ArrayList<>();
+        List<Embedding> addEmbeddings = new ArrayList<>();
+        List<TextSegment> addSegments = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            if (!failed.contains(owners.get(i))) {
+                addEmbeddings.add(vectors[i]);
+                addSegments.add(pending.get(i));
+                addIds.add(pending.get(i).metadata().getString(SEGMENT_ID));
+            }
+        }
+        long storeStart = System.nanoTime();
+        try {
+            embeddingStore.addAll(addIds, addEmbeddings, addSegments);
+            // 先写入新片段再删除旧片段，避免文章在向量库中出现无片段的窗口期
+            embeddingStore.removeAll(succeeded.stream().flatMap(plan -> plan.staleIds().stream()).toList());
+            chatMetrics.recordStage(ChatMetrics.PIPELINE_INGEST, "store", ChatMetrics.OUTCOME_SUCCESS, System.nanoTime() - storeStart);
+        } catch (Exception e) {
+            chatMetrics.recordStage(ChatMetrics.PIPELINE_INGEST, "store", ChatMetrics.OUTCOME_ERROR, System.nanoTime() - storeStart);
+            // 重试时已写入的片段不会重复向量化
+            log.error("批量写入文章片段失败, 文章数: {}", succeeded.size(), e);
+            succeeded.forEach(plan -> failed.add(plan.articleId()));
+            return failed;
+        }
+
+        for (ArticleIndexPlan plan : succeeded) {
+            if (!plan.addIds().isEmpty() || !plan.staleIds().isEmpty()) {
+                // 文章内容有变化，基于旧内容的缓存答案及本地片段向量失效
+                semanticAnswerCache.invalidate(plan.articleId());
+                articleVectorCache.invalidateEverywhere(List.of(plan.articleId()));
+            }
+            log.info("文章片段索引完成, articleId: {}, 片段数: {}, 重新向量化片段数: {}",
+                    plan.articleId(), plan.segmentCount(), plan.addIds().size());
+        }
+        return failed;
+    }
+
+    /**
+     * 切分文章并与向量库中已有片段对比，只有新增或内容发生变化的片段需要向量化
+     */
+    private ArticleIndexPlan plan(ArticleReq req) {
         Long articleId = req.getArticleId();
-        // 滑动窗口切分文章为文本片段
-        String[] paragraphs = getStrategy().split(req.getContent());
-        List<TextSegment> segments = new ArrayList<>();
-        for (int i = 0; i < paragraphs.length; i++) {
-            String text = String.format("文章标题:%s,文章片段:%s", req.getTitle(), paragraphs[i]);
-            TextSegment segment = TextSegment.from(text);
-            segment.metadata().put("articleId", articleId);
-            segment.metadata().put("segmentIndex", i);
-            segment.metadata().put("title", req.getTitle());
-            segments.add(segment);
+        List<TextSegment> segments = articleSegmenter.segment(req);
+        List<String> ids = segments.stream().map(segment -> segment.metadata().getString(SEGMENT_ID)).toList();
+
+        Set<String> indexedIds = new HashSet<>(embeddingStore.findIdsByArticleId(articleId));
+        List<String> addIds = new ArrayList<>();
+        List<TextSegment> addSegments = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (!indexedIds.contains(ids.get(i))) {
+                addIds.add(ids.get(i));
+                addSegments.add(segments.get(i));
+            }
         }
-        /*使用向量模型处理返回向量数据*/
-        List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
-        embeddingStore.addAll(embeddings, segments);
-        return true;
+        Set<String> currentIds = new HashSet<>(ids);
+        List<String> staleIds = indexedIds.stream().filter(id -> !currentIds.contains(id)).toList();
+        return new ArticleIndexPlan(articleId, ids.size(), addIds, addSegments, staleIds);
+    }
+
+    /**
+     * 检索结果及实际走的检索路径
+     */
+    private record Retrieval(String path, List<TextSegment> segments) {
     }
 
     @Override
     public List<TextSegment> search(Long articleId, String query) {
-        // 生成查询向量
-        Embedding queryEmbedding = embeddingModel.embed(query).content();
+        long start = System.nanoTime();
+        Retrieval retrieval;
+        try {
+            retrieval = retrieve(articleId, query);
+        } catch (RuntimeException e) {
+            chatMetrics.recordStage(ChatMetrics.PIPELINE_RETRIEVAL, "total", ChatMetrics.OUTCOME_ERROR, System.nanoTime() - start);
+            throw e;
+        }
+        chatMetrics.recordStage(ChatMetrics.PIPELINE_RETRIEVAL, "total", ChatMetrics.OUTCOME_SUCCESS, System.nanoTime() - start);
+        chatMetrics.recordRetrievedSegments(retrieval.path(), retrieval.segments().size());
+        return retrieval.segments();
+    }
+
+    private Retrieval retrieve(Long articleId, String query) {
+        RetrievalProperties config = retrievalProperties;
+        int topK = config.getTopK();
+        boolean lexicalReady = config.isLexicalEnabled() && lexicalIndex.isReady();
+        if (!lexicalReady) {
+            return new Retrieval("vector", vectorSearch(articleId, query, topK).stream().map(EmbeddingMatch::embedded).toList());
+        }
+        if (config.getMode() == RetrievalProperties.Mode.LEXICAL) {
+            return new Retrieval("lexical", lexicalSearch(articleId, query, topK));
+        }
+
+        // 关键词类查询有命中时直接返回，不调用向量模型和向量库
+        if (config.isKeywordFastPath() && LexicalTokenizer.isKeywordQuery(query, config.getKeywordMaxChars())) {
+            List<TextSegment> hits = lexicalSearch(articleId, query, topK);
+            if (!hits.isEmpty()) {
+                log.info("关键词快速检索命中, query: {}, 片段数: {}", query, hits.size());
+                return new Retrieval("keyword", hits);
+            }
+        }
 
-        if (articleId == null) {
-            return embeddingStore.search(EmbeddingSearchRequest.builder()
-                            .queryEmbedding(queryEmbedding)
-                            .maxResults(3) // 默认返回前3条
-                            .minScore(0.6) // 最小相似度分数
-                            .build()).matches().stream()
-                    .map(EmbeddingMatch::embedded)
-                    .collect(Collectors.toList());
+        boolean hybrid = config.getMode() == RetrievalProperties.Mode.HYBRID;
+        int candidates = hybrid ? Math.max(topK, config.getHybridCandidates()) : topK;
+        List<EmbeddingMatch<TextSegment>> vectorMatches;
+        Future<List<EmbeddingMatch<TextSegment>>> vectorFuture = null;
+        try {
+            // 向量模型或向量库响应慢时不阻塞对话；在独立线程池中执行，超时后取消并中断
+            vectorFuture = retrievalExecutor.submit(() -> vectorSearch(articleId, query, candidates));
+            vectorMatches = vectorFuture.get(config.getVectorTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("向量检索线程池已满，降级为关键词检索, query: {}", query);
+            return new Retrieval("fallback", lexicalSearch(articleId, query, topK));
+        } catch (InterruptedException e) {
+            vectorFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            return new Retrieval("fallback", lexicalSearch(articleId, query, topK));
+        } catch (TimeoutException e) {
+            vectorFuture.cancel(true);
+            log.warn("向量检索超过耗时预算({}ms)，降级为关键词检索, query: {}", config.getVectorTimeoutMillis(), query);
+            return new Retrieval("fallback", lexicalSearch(articleId, query, topK));
+        } catch (ExecutionException e) {
+            log.warn("向量检索失败，降级为关键词检索, query: {}", query, e.getCause());
+            return new Retrieval("fallback", lexicalSearch(articleId, query, topK));
         }
+        if (!hybrid) {
+            return new Retrieval("vector", vectorMatches.stream().map(EmbeddingMatch::embedded).toList());
+        }
+        return new Retrieval("hybrid", fuse(vectorMatches, lexicalIndex.search(articleId, query, candidates), topK, config.getRrfK()));
+    }
+
+    private List<EmbeddingMatch<TextSegment>> vectorSearch(Long articleId, String query, int maxResults) {
+        // 生成查询向量（优先命中缓存）
+        Embedding queryEmbedding = chatMetrics.timeStage(ChatMetrics.PIPELINE_RETRIEVAL, "embedQuery", () -> queryEmbeddingCache.embed(query));
 
-        // 执行搜索
-        EmbeddingSearchResult<TextSegment> result = embeddingStore.search(EmbeddingSearchRequest.builder()
+        EmbeddingSearchRequest.EmbeddingSearchRequestBuilder request = EmbeddingSearchRequest.builder()
                 .queryEmbedding(queryEmbedding)
-                .maxResults(10) // 默认返回前3条
-                .minScore(0.6) // 最小相似度分数
-                .build());
+                .maxResults(maxResults)
+                .minScore(retrievalProperties.getMinScore()); // 最小相似度分数
+        if (articleId != null) {
+            // 指定文章时片段很少，优先在本地缓存的片段向量上精确计算
+            long localStart = System.nanoTime();
+            List<EmbeddingMatch<TextSegment>> localMatches = articleVectorCache.search(articleId, queryEmbedding, maxResults, retrievalProperties.getMinScore());
+            if (localMatches != null) {
+                chatMetrics.recordStage(ChatMetrics.PIPELINE_RETRIEVAL, "local", ChatMetrics.OUTCOME_SUCCESS, System.nanoTime() - localStart);
+                localMatches.forEach(match -> chatMetrics.recordRetrievalScore("local", match.score()));
+                return localMatches;
+            }
+            // 文章ID 过滤下推到 Milvus，直接返回该文章内的 top-k
+            request.filter(new IsEqualTo(ARTICLE_ID, articleId));
+        }
+        List<EmbeddingMatch<TextSegment>> matches = chatMetrics.timeStage(ChatMetrics.PIPELINE_RETRIEVAL, "milvus",
+                () -> embeddingStore.search(request.build()).matches());
+        matches.forEach(match -> chatMetrics.recordRetrievalScore("milvus", match.score()));
+        return matches;
+    }
 
-        List<TextSegment> textSegments = result.matches()
-                .stream()
-                .map(EmbeddingMatch::embedded)
-                .toList();
-        return textSegments.stream().filter(segment -> {
-                    String articleStr = segment.metadata().get(ARTICLE_ID);
-                    if(articleStr==null) return false;
-                    try {
-                        // 先转为 Double 再转为 Long，处理 "21.0" 这种情况
-                        Double doubleValue = Double.valueOf(articleStr);
-                        Long id = doubleValue.longValue();
-                        return id.equals(articleId);
-                    } catch (NumberFormatException e) {
-                        return false;
-                    }
-                }).limit(3) // 返回前3个匹配的
-                .toList();
+    private List<TextSegment> lexicalSearch(Long articleId, String query, int topK) {
+        return lexicalIndex.search(articleId, query, topK).stream().map(LexicalIndex.Hit::segment).toList();
     }
 
+    /**
+     * 倒数排名融合：片段得分为其在各路结果中 1 / (k + 排名) 之和，按片段 id 合并两路结果
+     */
+    static List<TextSegment> fuse(List<EmbeddingMatch<TextSegment>> vectorMatches, List<LexicalIndex.Hit> lexicalHits, int topK, int k) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, TextSegment> segments = new HashMap<>();
+        for (int i = 0; i < vectorMatches.size(); i++) {
+            EmbeddingMatch<TextSegment> match = vectorMatches.get(i);
+            scores.merge(match.embeddingId(), 1.0 / (k + i + 1), Double::sum);
+            segments.putIfAbsent(match.embeddingId(), match.embedded());
+        }
+        for (int i = 0; i < lexicalHits.size(); i++) {
+            LexicalIndex.Hit hit = lexicalHits.get(i);
+            scores.merge(hit.id(), 1.0 / (k + i + 1), Double::sum);
+            segments.putIfAbsent(hit.id(), hit.segment());
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .map(entry -> segments.get(entry.getKey()))
+                .toList();
+    }
 
     @Override
     public boolean deleteByArticleId(Long articleId) {
         try {
             // 执行删除
-            embeddingStore.removeAll(new IsEqualTo(ARTICLE_ID,articleId));
+            chatMetrics.timeStage(ChatMetrics.PIPELINE_INGEST, "delete", () -> {
+                embeddingStore.removeAll(new IsEqualTo(ARTICLE_ID, articleId));
+                return null;
+            });
+            semanticAnswerCache.invalidate(articleId);
+            articleVectorCache.invalidateEverywhere(List.of(articleId));
             log.info("删除文章片段成功, articleId: {}", articleId);
             return true;
         } catch (Exception e) {
@@ -153,11 +441,26 @@ public class RAGServiceImpl implements RAGService {
         }
     }
 
-    private SplitStrategy getStrategy(){
-        for (SplitStrategy strategy : splitStrategies) {
-            if(strategy.getName().equals(splitStrategy)) return strategy;
+    @Override
+    public boolean deleteByArticleIds(List<Long> articleIds) {
+        if (articleIds.isEmpty()) {
+            return true;
+        }
+        List<Long> distinctIds = articleIds.stream().distinct().toList();
+        try {
+            // 合并为一次 article_id in [...] 删除
+            chatMetrics.timeStage(ChatMetrics.PIPELINE_INGEST, "delete", () -> {
+                embeddingStore.removeAll(new IsIn(ARTICLE_ID, distinctIds));
+                return null;
+            });
+            distinctIds.forEach(semanticAnswerCache::invalidate);
+            articleVectorCache.invalidateEverywhere(distinctIds);
+            log.info("批量删除文章片段成功, articleIds: {}", distinctIds);
+            return true;
+        } catch (Exception e) {
+            log.error("批量删除文章片段失败, articleIds: {}", distinctIds, e);
+            return false;
         }
-        return null;
     }
 
-}
\ No newline at end of file
+}
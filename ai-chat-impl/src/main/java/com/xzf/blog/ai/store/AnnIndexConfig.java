@@ -0,0 +1,100 @@
+package com.xzf.blog.ai.store;
+
+import io.milvus.param.IndexType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 向量索引配置
+ * 支持 FLAT / IVF_FLAT / IVF_SQ8 / HNSW，分别对应不同的构建参数与检索参数
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnnIndexConfig {
+
+    /**
+     * 索引类型
+     */
+    @Builder.Default
+    private IndexType type = IndexType.FLAT;
+
+    /**
+     * IVF 聚类中心数（构建参数）
+     */
+    @Builder.Default
+    private int nlist = 1024;
+
+    /**
+     * IVF 检索时探查的聚类数（检索参数）
+     */
+    @Builder.Default
+    private int nprobe = 16;
+
+    /**
+     * HNSW 每个节点的最大出边数（构建参数）
+     */
+    @Builder.Default
+    private int m = 16;
+
+    /**
+     * HNSW 构建时的候选集大小（构建参数）
+     */
+    @Builder.Default
+    private int efConstruction = 200;
+
+    /**
+     * HNSW 检索时的候选集大小（检索参数），需不小于 topK
+     */
+    @Builder.Default
+    private int ef = 64;
+
+    /**
+     * 启动时已有向量索引的类型或构建参数与配置不一致时是否重建
+     * 重建需要释放集合，期间所有实例都无法检索，只在迁移时对单个实例开启，其余实例沿用已有索引
+     */
+    @Builder.Default
+    private boolean rebuildOnMismatch = false;
+
+    /**
+     * 构建参数，用于与已有索引比较
+     */
+    public Map<String, String> buildParams() {
+        return switch (type) {
+            case FLAT -> Map.of();
+            case IVF_FLAT, IVF_SQ8 -> Map.of("nlist", String.valueOf(nlist));
+            case HNSW -> Map.of("M", String.valueOf(m), "efConstruction", String.valueOf(efConstruction));
+            default -> throw new IllegalArgumentException("不支持的索引类型: " + type);
+        };
+    }
+
+    /**
+     * 创建索引时的 extra param
+     */
+    public String toIndexParam() {
+        return switch (type) {
+            case FLAT -> "{}";
+            case IVF_FLAT, IVF_SQ8 -> "{\"nlist\":" + nlist + "}";
+            case HNSW -> "{\"M\":" + m + ",\"efConstruction\":" + efConstruction + "}";
+            default -> throw new IllegalArgumentException("不支持的索引类型: " + type);
+        };
+    }
+
+    /**
+     * 检索时的 params
+     */
+    public String toSearchParam() {
+        return switch (type) {
+            case FLAT -> "{}";
+            case IVF_FLAT, IVF_SQ8 -> "{\"nprobe\":" + nprobe + "}";
+            case HNSW -> "{\"ef\":" + ef + "}";
+            default -> throw new IllegalArgumentException("不支持的索引类型: " + type);
+        };
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.xzf.blog.ai.store;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 文章片段向量存储
+ * 文章ID 作为独立的标量字段存储，元数据过滤中的 articleId 会下推为该字段上的过滤表达式
+ */
+public interface ArticleEmbeddingStore extends EmbeddingStore<TextSegment> {
+
+    /**
+     * 元数据中的文章ID key
+     */
+    String ARTICLE_ID = "articleId";
+
+    /**
+     * 使用指定 ID 写入片段
+     */
+    void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments);
+
+    /**
+     * 查询文章已写入的全部片段 ID
+     */
+    List<String> findIdsByArticleId(Long articleId);
+
+    /**
+     * 遍历全部文章片段（不含向量及文件片段），片段元数据中包含文章ID
+     *
+     * @param consumer 接收片段 ID 和片段
+     */
+    void scanArticleSegments(BiConsumer<String, TextSegment> consumer);
+
+    /**
+     * 查询文章的全部片段及向量
+     */
+    List<StoredSegment> findSegmentsByArticleId(Long articleId);
+
+    /**
+     * 已写入的片段
+     *
+     * @param id      片段 ID
+     * @param vector  片段向量
+     * @param segment 片段，只包含文本
+     */
+    record StoredSegment(String id, float[] vector, TextSegment segment) {
+    }
+
+}
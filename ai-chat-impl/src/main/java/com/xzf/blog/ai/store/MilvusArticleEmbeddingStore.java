@@ -0,0 +1,548 @@
+package com.xzf.blog.ai.store;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Not;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DescribeIndexResponse;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.IndexType;
+import io.milvus.param.MetricType;
+import io.milvus.param.R;
+import io.milvus.param.collection.CreateCollectionParam;
+import io.milvus.param.collection.FieldType;
+import io.milvus.param.collection.FlushParam;
+import io.milvus.param.collection.HasCollectionParam;
+import io.milvus.param.collection.LoadCollectionParam;
+import io.milvus.param.collection.ReleaseCollectionParam;
+import io.milvus.param.dml.DeleteParam;
+import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.QueryParam;
+import io.milvus.param.dml.SearchParam;
+import io.milvus.param.index.CreateIndexParam;
+import io.milvus.param.index.DescribeIndexParam;
+import io.milvus.param.index.DropIndexParam;
+import io.milvus.response.QueryResultsWrapper;
+import io.milvus.response.SearchResultsWrapper;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 Milvus 的文章片段向量存储
+ * 集合结构：id(VarChar 主键) / article_id(Int64) / text(VarChar) / metadata(JSON) / vector(FloatVector)
+ */
+@Slf4j
+public class MilvusArticleEmbeddingStore implements ArticleEmbeddingStore {
+
+    private static final String ID_FIELD = "id";
+    private static final String ARTICLE_ID_FIELD = "article_id";
+    private static final String TEXT_FIELD = "text";
+    private static final String METADATA_FIELD = "metadata";
+    private static final String VECTOR_FIELD = "vector";
+    private static final String VECTOR_INDEX = VECTOR_FIELD + "_index";
+
+    /**
+     * 不属于任何文章的片段（如上传的文件）使用的文章ID
+     */
+    private static final long NO_ARTICLE_ID = 0L;
+
+    private static final int MAX_TEXT_LENGTH = 65535;
+
+    /**
+     * Milvus 单次查询返回的最大条数
+     */
+    private static final long MAX_QUERY_LIMIT = 16384L;
+
+    /**
+     * 遍历片段时主键前缀的字符集及最大细分长度（UUID 第一个连字符之前）
+     */
+    private static final String HEX_DIGITS = "0123456789abcdef";
+    private static final int ID_PREFIX_MAX_LENGTH = 8;
+
+    private static final Gson GSON = new Gson();
+
+    private final MilvusServiceClient milvusClient;
+    private final String collectionName;
+    private final AnnIndexConfig annIndex;
+    /**
+     * 检索参数按实际生效的索引类型生成，配置变更尚未迁移时与 annIndex 不同
+     */
+    private final AnnIndexConfig searchIndex;
+    private final MetricType metricType;
+    private final ConsistencyLevelEnum consistencyLevel;
+    private final boolean autoFlushOnInsert;
+
+    @Builder
+    private MilvusArticleEmbeddingStore(MilvusServiceClient milvusClient,
+                                        String collectionName,
+                                        Integer dimension,
+                                        AnnIndexConfig annIndex,
+                                        MetricType metricType,
+                                        ConsistencyLevelEnum consistencyLevel,
+                                        Boolean autoFlushOnInsert) {
+        this.milvusClient = milvusClient;
+        this.collectionName = collectionName;
+        this.annIndex = annIndex == null ? new AnnIndexConfig() : annIndex;
+        this.metricType = metricType == null ? MetricType.COSINE : metricType;
+        this.consistencyLevel = consistencyLevel == null ? ConsistencyLevelEnum.EVENTUALLY : consistencyLevel;
+        this.autoFlushOnInsert = autoFlushOnInsert != null && autoFlushOnInsert;
+
+        if (!collectionExists()) {
+            createCollection(dimension);
+            this.searchIndex = this.annIndex;
+        } else {
+            this.searchIndex = ensureVectorIndex();
+        }
+        check(milvusClient.loadCollection(LoadCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build()), "加载集合");
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment segment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(segment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = randomIds(embeddings.size());
+        addAll(ids, embeddings, null);
+        return ids;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> segments) {
+        List<String> ids = randomIds(embeddings.size());
+        addAll(ids, embeddings, segments);
+        return ids;
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> articleIds = new ArrayList<>(ids.size());
+        List<String> texts = new ArrayList<>(ids.size());
+        List<JsonObject> metadata = new ArrayList<>(ids.size());
+        List<List<Float>> vectors = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            TextSegment segment = segments == null ? null : segments.get(i);
+            Long articleId = segment == null ? null : segment.metadata().getLong(ARTICLE_ID);
+            articleIds.add(articleId == null ? NO_ARTICLE_ID : articleId);
+            texts.add(segment == null ? "" : segment.text());
+            metadata.add(segment == null ? new JsonObject() : GSON.toJsonTree(segment.metadata().toMap()).getAsJsonObject());
+            vectors.add(embeddings.get(i).vectorAsList());
+        }
+
+        List<InsertParam.Field> fields = List.of(
+                new InsertParam.Field(ID_FIELD, ids),
+                new InsertParam.Field(ARTICLE_ID_FIELD, articleIds),
+                new InsertParam.Field(TEXT_FIELD, texts),
+                new InsertParam.Field(METADATA_FIELD, metadata),
+                new InsertParam.Field(VECTOR_FIELD, vectors));
+        check(milvusClient.insert(InsertParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFields(fields)
+                .build()), "写入片段");
+        if (autoFlushOnInsert) {
+            check(milvusClient.flush(FlushParam.newBuilder()
+                    .addCollectionName(collectionName)
+                    .build()), "刷盘");
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        SearchParam.Builder builder = SearchParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withVectorFieldName(VECTOR_FIELD)
+                .withVectors(List.of(request.queryEmbedding().vectorAsList()))
+                .withTopK(request.maxResults())
+                .withMetricType(metricType)
+                .withParams(searchIndex.toSearchParam())
+                .withConsistencyLevel(consistencyLevel)
+                // 只返回拼接提示词需要的文本字段
+                .withOutFields(List.of(TEXT_FIELD));
+        if (request.filter() != null) {
+            builder.withExpr(toExpression(request.filter()));
+        }
+        R<SearchResults> response = milvusClient.search(builder.build());
+        check(response, "检索片段");
+
+        SearchResultsWrapper wrapper = new SearchResultsWrapper(response.getData().getResults());
+        List<SearchResultsWrapper.IDScore> idScores = wrapper.getIDScore(0);
+        List<?> texts = wrapper.getFieldData(TEXT_FIELD, 0);
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(idScores.size());
+        for (int i = 0; i < idScores.size(); i++) {
+            SearchResultsWrapper.IDScore idScore = idScores.get(i);
+            // 与 langchain4j 保持一致，余弦相似度 [-1,1] 映射为相关性分数 [0,1]
+            double score = metricType == MetricType.COSINE
+                    ? RelevanceScore.fromCosineSimilarity(idScore.getScore())
+                    : idScore.getScore();
+            if (score < request.minScore()) {
+                continue;
+            }
+            matches.add(new EmbeddingMatch<>(score, idScore.getStrID(), null, TextSegment.from((String) texts.get(i))));
+        }
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    @Override
+    public List<String> findIdsByArticleId(Long articleId) {
+        R<QueryResults> response = milvusClient.query(QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr(ARTICLE_ID_FIELD + " == " + articleId)
+                .withOutFields(List.of(ID_FIELD))
+                .withLimit(MAX_QUERY_LIMIT)
+                // 增量索引依赖最新数据，使用强一致性
+                .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                .build());
+        check(response, "查询文章片段");
+        return new QueryResultsWrapper(response.getData()).getFieldWrapper(ID_FIELD).getFieldData().stream()
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<StoredSegment> findSegmentsByArticleId(Long articleId) {
+        R<QueryResults> response = milvusClient.query(QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr(ARTICLE_ID_FIELD + " == " + articleId)
+                .withOutFields(List.of(ID_FIELD, TEXT_FIELD, VECTOR_FIELD))
+                .withLimit(MAX_QUERY_LIMIT)
+                .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                .build());
+        check(response, "查询文章片段向量");
+        QueryResultsWrapper wrapper = new QueryResultsWrapper(response.getData());
+        List<?> ids = wrapper.getFieldWrapper(ID_FIELD).getFieldData();
+        List<?> texts = wrapper.getFieldWrapper(TEXT_FIELD).getFieldData();
+        List<?> vectors = wrapper.getFieldWrapper(VECTOR_FIELD).getFieldData();
+        List<StoredSegment> segments = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            List<?> values = (List<?>) vectors.get(i);
+            float[] vector = new float[values.size()];
+            for (int j = 0; j < vector.length; j++) {
+                vector[j] = ((Number) values.get(j)).floatValue();
+            }
+            segments.add(new StoredSegment(String.valueOf(ids.get(i)), vector, TextSegment.from((String) texts.get(i))));
+        }
+        return segments;
+    }
+
+    @Override
+    public void scanArticleSegments(BiConsumer<String, TextSegment> consumer) {
+        scanByIdPrefix("", consumer);
+    }
+
+    /**
+     * 单次查询最多返回 MAX_QUERY_LIMIT 条且结果无序，无法按页遍历；
+     * 按主键（UUID 十六进制字符串）前缀分片查询，某个前缀的结果达到上限时继续细分
+     */
+    private void scanByIdPrefix(String prefix, BiConsumer<String, TextSegment> consumer) {
+        String expression = ARTICLE_ID_FIELD + " != " + NO_ARTICLE_ID
+                + (prefix.isEmpty() ? "" : " and " + ID_FIELD + " like \"" + prefix + "%\"");
+        R<QueryResults> response = milvusClient.query(QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr(expression)
+                .withOutFields(List.of(ID_FIELD, ARTICLE_ID_FIELD, TEXT_FIELD))
+                .withLimit(MAX_QUERY_LIMIT)
+                .withConsistencyLevel(consistencyLevel)
+                .build());
+        check(response, "遍历文章片段");
+        QueryResultsWrapper wrapper = new QueryResultsWrapper(response.getData());
+        List<?> ids = wrapper.getFieldWrapper(ID_FIELD).getFieldData();
+        if (ids.size() >= MAX_QUERY_LIMIT && prefix.length() < ID_PREFIX_MAX_LENGTH) {
+            for (char c : HEX_DIGITS.toCharArray()) {
+                scanByIdPrefix(prefix + c, consumer);
+            }
+            return;
+        }
+        List<?> articleIds = wrapper.getFieldWrapper(ARTICLE_ID_FIELD).getFieldData();
+        List<?> texts = wrapper.getFieldWrapper(TEXT_FIELD).getFieldData();
+        for (int i = 0; i < ids.size(); i++) {
+            TextSegment segment = TextSegment.from((String) texts.get(i));
+            segment.metadata().put(ARTICLE_ID, (Long) articleIds.get(i));
+            consumer.accept(String.valueOf(ids.get(i)), segment);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        delete(ID_FIELD + " in " + toList(ids));
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        delete(toExpression(filter));
+    }
+
+    @Override
+    public void removeAll() {
+        delete(ID_FIELD + " != \"\"");
+    }
+
+    private void delete(String expression) {
+        check(milvusClient.delete(DeleteParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr(expression)
+                .build()), "删除片段");
+    }
+
+    private boolean collectionExists() {
+        R<Boolean> response = milvusClient.hasCollection(HasCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        check(response, "查询集合");
+        return Boolean.TRUE.equals(response.getData());
+    }
+
+    private void createCollection(Integer dimension) {
+        log.info("创建 Milvus 集合: {}, 维度: {}, 索引类型: {}", collectionName, dimension, annIndex.getType());
+        check(milvusClient.createCollection(CreateCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .addFieldType(FieldType.newBuilder()
+                        .withName(ID_FIELD)
+                        .withDataType(DataType.VarChar)
+                        .withMaxLength(36)
+                        .withPrimaryKey(true)
+                        .withAutoID(false)
+                        .build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(ARTICLE_ID_FIELD)
+                        .withDataType(DataType.Int64)
+                        .build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(TEXT_FIELD)
+                        .withDataType(DataType.VarChar)
+                        .withMaxLength(MAX_TEXT_LENGTH)
+                        .build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(METADATA_FIELD)
+                        .withDataType(DataType.JSON)
+                        .build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(VECTOR_FIELD)
+                        .withDataType(DataType.FloatVector)
+                        .withDimension(dimension)
+                        .build())
+                .build()), "创建集合");
+
+        createVectorIndex();
+
+        // 文章ID 标量索引，加速按文章过滤
+        check(milvusClient.createIndex(CreateIndexParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFieldName(ARTICLE_ID_FIELD)
+                .withIndexName(ARTICLE_ID_FIELD + "_index")
+                .withIndexType(IndexType.STL_SORT)
+                .withSyncMode(Boolean.FALSE)
+                .build()), "创建文章ID索引");
+    }
+
+    private void createVectorIndex() {
+        check(milvusClient.createIndex(CreateIndexParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFieldName(VECTOR_FIELD)
+                .withIndexName(VECTOR_INDEX)
+                .withIndexType(annIndex.getType())
+                .withMetricType(metricType)
+                .withExtraParam(annIndex.toIndexParam())
+                .withSyncMode(Boolean.FALSE)
+                .build()), "创建向量索引");
+    }
+
+    /**
+     * 比较已有向量索引与配置，返回检索时使用的索引配置
+     * 不一致时只在开启 rebuildOnMismatch 时重建，否则沿用已有索引，避免滚动发布时每个实例都释放共享的集合
+     */
+    private AnnIndexConfig ensureVectorIndex() {
+        R<DescribeIndexResponse> response = milvusClient.describeIndex(DescribeIndexParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withIndexName(VECTOR_INDEX)
+                .build());
+        Map<String, String> current = null;
+        if (response.getStatus() == R.Status.Success.getCode() && response.getData().getIndexDescriptionsCount() > 0) {
+            current = response.getData().getIndexDescriptions(0).getParamsList().stream()
+                    .collect(Collectors.toMap(KeyValuePair::getKey, KeyValuePair::getValue, (a, b) -> b));
+        }
+        if (current == null) {
+            // 没有向量索引时集合无法加载，不存在正在使用的索引，直接创建
+            log.info("创建 Milvus 向量索引, 集合: {}, 索引类型: {}", collectionName, annIndex.getType());
+            createVectorIndex();
+            return annIndex;
+        }
+        if (indexMatches(current, annIndex, metricType)) {
+            return annIndex;
+        }
+        if (!annIndex.isRebuildOnMismatch()) {
+            log.warn("Milvus 向量索引与配置不一致，沿用已有索引, 集合: {}, 已有索引: {}, 配置: {} {}, 需要迁移时对单个实例开启 rebuild-on-mismatch",
+                    collectionName, current, annIndex.getType(), annIndex.buildParams());
+            return searchConfigFor(current.get("index_type"));
+        }
+
+        log.info("重建 Milvus 向量索引, 集合: {}, 已有索引: {}, 配置: {} {}", collectionName, current, annIndex.getType(), annIndex.buildParams());
+        check(milvusClient.releaseCollection(ReleaseCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build()), "释放集合");
+        check(milvusClient.dropIndex(DropIndexParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withIndexName(VECTOR_INDEX)
+                .build()), "删除向量索引");
+        createVectorIndex();
+        return annIndex;
+    }
+
+    /**
+     * 已有索引的类型、度量方式及全部构建参数是否与配置一致
+     * describeIndex 返回的构建参数可能是独立的 key，也可能合并在 params JSON 中
+     */
+    static boolean indexMatches(Map<String, String> current, AnnIndexConfig config, MetricType metricType) {
+        Map<String, String> params = new HashMap<>(current);
+        String json = current.get("params");
+        if (json != null && json.startsWith("{")) {
+            GSON.fromJson(json, JsonObject.class).entrySet()
+                    .forEach(entry -> params.put(entry.getKey(), entry.getValue().getAsString()));
+        }
+        if (!config.getType().name().equals(params.get("index_type"))) {
+            return false;
+        }
+        String currentMetric = params.get("metric_type");
+        if (currentMetric != null && !metricType.name().equals(currentMetric)) {
+            return false;
+        }
+        for (Map.Entry<String, String> entry : config.buildParams().entrySet()) {
+            if (!sameNumber(params.get(entry.getKey()), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameNumber(String current, String expected) {
+        if (current == null) {
+            return false;
+        }
+        try {
+            return new BigDecimal(current).compareTo(new BigDecimal(expected)) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 沿用已有索引时按其类型生成检索参数，检索参数仍取自配置
+     */
+    private AnnIndexConfig searchConfigFor(String indexType) {
+        try {
+            return AnnIndexConfig.builder()
+                    .type(IndexType.valueOf(indexType))
+                    .nprobe(annIndex.getNprobe())
+                    .ef(annIndex.getEf())
+                    .build();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("无法识别已有向量索引类型: {}, 检索参数按配置生成", indexType);
+            return annIndex;
+        }
+    }
+
+    /**
+     * 将 langchain4j 元数据过滤条件转换为 Milvus 表达式
+     * articleId 映射到 article_id 标量字段，其余 key 映射到 metadata JSON 字段
+     */
+    static String toExpression(Filter filter) {
+        if (filter instanceof IsEqualTo isEqualTo) {
+            return toField(isEqualTo.key()) + " == " + toValue(isEqualTo.comparisonValue());
+        } else if (filter instanceof IsNotEqualTo isNotEqualTo) {
+            return toField(isNotEqualTo.key()) + " != " + toValue(isNotEqualTo.comparisonValue());
+        } else if (filter instanceof IsIn isIn) {
+            return toField(isIn.key()) + " in " + toList(isIn.comparisonValues());
+        } else if (filter instanceof IsNotIn isNotIn) {
+            return toField(isNotIn.key()) + " not in " + toList(isNotIn.comparisonValues());
+        } else if (filter instanceof And and) {
+            return "(" + toExpression(and.left()) + " and " + toExpression(and.right()) + ")";
+        } else if (filter instanceof Or or) {
+            return "(" + toExpression(or.left()) + " or " + toExpression(or.right()) + ")";
+        } else if (filter instanceof Not not) {
+            return "not (" + toExpression(not.expression()) + ")";
+        }
+        throw new UnsupportedOperationException("不支持的过滤条件: " + filter.getClass().getName());
+    }
+
+    private static String toField(String key) {
+        if (ARTICLE_ID.equals(key)) {
+            return ARTICLE_ID_FIELD;
+        }
+        return METADATA_FIELD + "[\"" + key + "\"]";
+    }
+
+    private static String toValue(Object value) {
+        if (value instanceof String str) {
+            return "\"" + str.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+        return String.valueOf(value);
+    }
+
+    private static String toList(Collection<?> values) {
+        return values.stream().map(MilvusArticleEmbeddingStore::toValue).collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static List<String> randomIds(int size) {
+        List<String> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+
+    private static void check(R<?> response, String action) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("Milvus " + action + "失败: " + response.getMessage(), response.getException());
+        }
+    }
+
+}
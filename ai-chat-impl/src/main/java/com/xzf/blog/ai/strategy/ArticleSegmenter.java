@@ -0,0 +1,64 @@
+package com.xzf.blog.ai.strategy;
+
+import com.xzf.blog.ai.api.vo.req.ArticleReq;
+import com.xzf.blog.ai.store.ArticleEmbeddingStore;
+import com.xzf.blog.ai.util.SegmentIdUtil;
+import dev.langchain4j.data.segment.TextSegment;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文章切分为带元数据的片段
+ * 向量索引与关键词索引共用，保证两者的片段及片段 ID 一致
+ */
+@Component
+public class ArticleSegmenter {
+
+    public static final String SEGMENT_ID = "segmentId";
+
+    public static final String SEGMENT_INDEX = "segmentIndex";
+
+    public static final String TITLE = "title";
+
+    @Value("${article.split.strategy:slidingWindow}")
+    private String splitStrategy;
+
+    @Resource
+    private List<SplitStrategy> splitStrategies;
+
+    /**
+     * 按配置的切分策略切分文章，片段 ID 由 (文章ID, 片段内容, 相同内容的出现次序) 确定性生成
+     * 片段序号只作为元数据，内容未变化的片段保留首次写入时的序号
+     */
+    public List<TextSegment> segment(ArticleReq req) {
+        Long articleId = req.getArticleId();
+        // 滑动窗口切分文章为文本片段
+        String[] paragraphs = getStrategy().split(req.getContent());
+        List<String> texts = new ArrayList<>(paragraphs.length);
+        for (String paragraph : paragraphs) {
+            texts.add(String.format("文章标题:%s,文章片段:%s", req.getTitle(), paragraph));
+        }
+        List<String> ids = SegmentIdUtil.segmentIds(articleId, texts);
+        List<TextSegment> segments = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            TextSegment segment = TextSegment.from(texts.get(i));
+            segment.metadata().put(ArticleEmbeddingStore.ARTICLE_ID, articleId);
+            segment.metadata().put(SEGMENT_INDEX, i);
+            segment.metadata().put(SEGMENT_ID, ids.get(i));
+            segment.metadata().put(TITLE, req.getTitle());
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    private SplitStrategy getStrategy() {
+        for (SplitStrategy strategy : splitStrategies) {
+            if (strategy.getName().equals(splitStrategy)) return strategy;
+        }
+        throw new IllegalStateException("未知的切分策略: " + splitStrategy);
+    }
+}
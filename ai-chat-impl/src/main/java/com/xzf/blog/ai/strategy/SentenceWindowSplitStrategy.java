@@ -0,0 +1,25 @@
+package com.xzf.blog.ai.strategy;
+
+import com.xzf.blog.ai.commons.constant.SplitStrategyConstants;
+import com.xzf.blog.ai.util.SentenceWindowSplitter;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+@Component
+public class SentenceWindowSplitStrategy implements SplitStrategy{
+    @Override
+    public String[] split(String article) {
+        return SentenceWindowSplitter.split(article);
+    }
+
+    @Override
+    public Stream<String> splitToStream(String article) {
+        return SentenceWindowSplitter.stream(article);
+    }
+
+    @Override
+    public String getName() {
+        return SplitStrategyConstants.SENTENCE_WINDOW;
+    }
+}
@@ -1,6 +1,16 @@
 package com.xzf.blog.ai.strategy;
 
+import java.util.Arrays;
+import java.util.stream.Stream;
+
 public interface SplitStrategy {
     String[] split(String article);
     String getName();
+
+    /**
+     * 惰性切分，默认基于 {@link #split(String)}，支持流式切分的策略可覆盖
+     */
+    default Stream<String> splitToStream(String article) {
+        return Arrays.stream(split(article));
+    }
 }
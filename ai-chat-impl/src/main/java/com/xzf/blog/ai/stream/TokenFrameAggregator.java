@@ -0,0 +1,144 @@
+package com.xzf.blog.ai.stream;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式输出的 token 合帧
+ * 第一个 token 立即发出以保证首字延迟，之后的 token 先缓存，累计达到 maxFrameBytes 字节或距首个缓存 token 超过 maxDelayMillis 时合并为一帧发出；
+ * 下游没有请求时不发出，token 持续合并在当前帧中，下游请求到达后再发出，不依赖 Flux.create 的无界缓冲
+ */
+public class TokenFrameAggregator {
+
+    private final FluxSink<String> sink;
+
+    private final int maxFrameBytes;
+
+    private final long maxDelayMillis;
+
+    private final Scheduler scheduler;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private int bufferedBytes;
+
+    private boolean firstEmitted;
+
+    private boolean completed;
+
+    private Throwable error;
+
+    private boolean terminated;
+
+    private Disposable scheduledFlush;
+
+    private long frameCount;
+
+    /**
+     * @param maxFrameBytes  单帧字节数（UTF-8）上限，小于等于 0 时每个 token 单独成帧
+     * @param maxDelayMillis token 在缓存中的最长等待时间
+     * @param scheduler      定时发出未满帧的调度器
+     */
+    public TokenFrameAggregator(FluxSink<String> sink, int maxFrameBytes, long maxDelayMillis, Scheduler scheduler) {
+        this.sink = sink;
+        this.maxFrameBytes = maxFrameBytes;
+        this.maxDelayMillis = maxDelayMillis;
+        this.scheduler = scheduler;
+        sink.onRequest(n -> drain());
+        sink.onDispose(this::cancelScheduledFlush);
+    }
+
+    public synchronized void next(String token) {
+        if (terminated || completed || error != null || token == null || token.isEmpty()) {
+            return;
+        }
+        buffer.append(token);
+        bufferedBytes += utf8Length(token);
+        if (!firstEmitted || bufferedBytes >= maxFrameBytes || maxDelayMillis <= 0) {
+            drain();
+        } else if (scheduledFlush == null) {
+            scheduledFlush = scheduler.schedule(this::onDelayElapsed, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 发出剩余内容后结束
+     */
+    public synchronized void complete() {
+        completed = true;
+        drain();
+    }
+
+    /**
+     * 发出剩余内容后以异常结束
+     */
+    public synchronized void error(Throwable throwable) {
+        error = throwable;
+        drain();
+    }
+
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    private synchronized void onDelayElapsed() {
+        scheduledFlush = null;
+        drain();
+    }
+
+    /**
+     * 下游有请求时发出当前帧，没有请求时保留到下次请求
+     */
+    private synchronized void drain() {
+        if (terminated) {
+            return;
+        }
+        if (!buffer.isEmpty()) {
+            if (sink.requestedFromDownstream() <= 0) {
+                return;
+            }
+            cancelScheduledFlush();
+            String frame = buffer.toString();
+            buffer.setLength(0);
+            bufferedBytes = 0;
+            firstEmitted = true;
+            frameCount++;
+            sink.next(frame);
+        }
+        if (error != null) {
+            terminated = true;
+            sink.error(error);
+        } else if (completed) {
+            terminated = true;
+            sink.complete();
+        }
+    }
+
+    private synchronized void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.dispose();
+            scheduledFlush = null;
+        }
+    }
+
+    static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isSurrogate(c)) {
+                // 代理对共 4 字节，每个代理字符各计 2 字节
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,245 @@
+package com.xzf.blog.ai.summary;
+
+import com.xzf.blog.ai.commons.constant.RedisConstants;
+import com.xzf.blog.ai.commons.enums.ChatType;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.manager.ChatHistoryManager;
+import com.xzf.blog.ai.metrics.ChatMetrics;
+import com.xzf.blog.ai.model.ChatHistoryDO;
+import com.xzf.blog.ai.prompt.ChatPromptBuilder;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话滚动摘要
+ * 摘要与已摘要的轮数存放在 Redis hash 中；未摘要的轮次过多时异步调用大模型，把较早的轮次合并进摘要，
+ * 提示词只携带摘要和未摘要的最近几轮
+ */
+@Slf4j
+@Component
+public class ConversationSummarizer {
+
+    private static final String SUMMARY_FIELD = "summary";
+
+    private static final String ROUNDS_FIELD = "rounds";
+
+    /**
+     * KEYS[1] 摘要 key；ARGV[1] 读取时已摘要的轮数，ARGV[2] 新摘要，ARGV[3] 新的已摘要轮数，ARGV[4] 过期秒数
+     * 已摘要轮数与读取时不一致说明其他任务已更新，放弃本次写入
+     */
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "local rounds = redis.call('HGET', KEYS[1], 'rounds') or '0' " +
+            "if rounds ~= ARGV[1] then return 0 end " +
+            "redis.call('HSET', KEYS[1], 'summary', ARGV[2], 'rounds', ARGV[3]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[4]) " +
+            "return 1", Long.class);
+
+    /**
+     * KEYS[1] 锁 key；ARGV[1] 加锁时写入的令牌，只删除自己持有的锁
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private ChatHistoryManager chatHistoryManager;
+
+    @Resource
+    private ChatLanguageModel chatLanguageModel;
+
+    @Resource
+    private ChatModelProperties chatModelProperties;
+
+    @Resource
+    private ChatMetrics chatMetrics;
+
+    @Resource(name = "chatExecutor")
+    private AsyncTaskExecutor chatExecutor;
+
+    /**
+     * 会话摘要状态
+     *
+     * @param text          摘要，没有摘要时为空串
+     * @param coveredRounds 已合并进摘要的轮数
+     * @param totalRounds   会话轮次计数（包含进行中的本轮），未知时为 -1
+     */
+    public record Summary(String text, long coveredRounds, long totalRounds) {
+
+        public static Summary empty() {
+            return new Summary("", 0, -1);
+        }
+
+        /**
+         * 从历史窗口中去掉已合并进摘要的轮次；没有摘要或轮次未知时原样返回
+         *
+         * @param history 按时间升序的历史消息，不包含本轮
+         */
+        public List<ChatHistoryDO> uncovered(List<ChatHistoryDO> history) {
+            if (text.isEmpty() || totalRounds < 0) {
+                return history;
+            }
+            return lastRounds(history, Math.max(0, totalRounds - 1 - coveredRounds));
+        }
+
+        /**
+         * 本轮完成后未摘要的轮次是否达到触发条件
+         */
+        public boolean needsCompaction(ChatModelProperties.Summary config) {
+            return totalRounds >= 0 && totalRounds - coveredRounds >= config.getKeepRounds() + config.getTriggerRounds();
+        }
+    }
+
+    /**
+     * 读取摘要及会话轮次计数，读取失败时返回空摘要
+     */
+    public Summary get(Long userId, String conversationKey) {
+        if (!chatModelProperties.getSummary().isEnabled()) {
+            return Summary.empty();
+        }
+        try {
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(RedisConstants.getChatSummaryKey(userId, conversationKey));
+            String round = stringRedisTemplate.opsForValue().get(RedisConstants.getChatRoundKey(userId, conversationKey));
+            String text = (String) entries.getOrDefault(SUMMARY_FIELD, "");
+            long coveredRounds = Long.parseLong((String) entries.getOrDefault(ROUNDS_FIELD, "0"));
+            return new Summary(text, coveredRounds, round == null ? -1 : Long.parseLong(round));
+        } catch (Exception e) {
+            log.warn("读取会话摘要失败, userId: {}, conversationKey: {}", userId, conversationKey, e);
+            return Summary.empty();
+        }
+    }
+
+    /**
+     * 在线程池中执行摘要，同一会话同时只有一个摘要任务
+     */
+    public void compactAsync(Long userId, String conversationKey) {
+        try {
+            chatExecutor.execute(() -> {
+                try {
+                    compact(userId, conversationKey);
+                } catch (Exception e) {
+                    // 摘要失败不影响对话，下一轮完成后再次尝试
+                    log.warn("会话摘要失败, userId: {}, conversationKey: {}", userId, conversationKey, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("对话线程池已满，跳过本轮会话摘要, conversationKey: {}", conversationKey);
+        }
+    }
+
+    private void compact(Long userId, String conversationKey) {
+        ChatModelProperties.Summary config = chatModelProperties.getSummary();
+        String lockKey = RedisConstants.getChatSummaryLockKey(userId, conversationKey);
+        // 摘要耗时超过锁过期时间时锁可能已被下一个任务持有，释放时校验令牌
+        String token = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, config.getLockSeconds(), TimeUnit.SECONDS))) {
+            return;
+        }
+        try {
+            Summary current = get(userId, conversationKey);
+            // 对话记录异步写库，数据库中的轮数可能少于实际轮数，只会少合并不会多合并
+            long total = chatHistoryManager.getRound(userId, conversationKey);
+            int fold = foldRounds(total, current.coveredRounds(), config);
+            if (fold == 0) {
+                return;
+            }
+            // 从最早未摘要的轮次开始合并，多取一轮保证最后一轮的回答完整；单次合并不完的轮次由后续任务继续
+            List<List<ChatHistoryDO>> rounds = toRounds(chatHistoryManager.getHistoryAfterRounds(userId, conversationKey,
+                    current.coveredRounds(), (fold + 1) * 2));
+            List<List<ChatHistoryDO>> folded = rounds.subList(0, Math.min(fold, rounds.size()));
+            if (folded.isEmpty()) {
+                return;
+            }
+
+            String summary = summarize(current.text(), folded, config);
+            long coveredRounds = current.coveredRounds() + folded.size();
+            Long updated = stringRedisTemplate.execute(UPDATE_SCRIPT, List.of(RedisConstants.getChatSummaryKey(userId, conversationKey)),
+                    String.valueOf(current.coveredRounds()), summary, String.valueOf(coveredRounds), String.valueOf(chatModelProperties.getExpireSeconds()));
+            log.info("会话摘要完成, conversationKey: {}, 合并轮数: {}, 已摘要轮数: {}, 写入: {}", conversationKey, folded.size(), coveredRounds, updated);
+        } finally {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
+        }
+    }
+
+    private String summarize(String previous, List<List<ChatHistoryDO>> rounds, ChatModelProperties.Summary config) {
+        StringBuilder content = new StringBuilder();
+        if (!previous.isEmpty()) {
+            content.append("已有摘要:\n").append(previous).append('\n');
+        }
+        content.append("新增对话:\n");
+        for (List<ChatHistoryDO> round : rounds) {
+            for (ChatHistoryDO message : round) {
+                content.append(message.getType() == ChatType.USER_MESSAGE ? "用户:" : "助手:")
+                        .append(ChatPromptBuilder.textOf(message)).append('\n');
+            }
+        }
+        ChatRequest request = ChatRequest.builder()
+                .messages(List.of(new SystemMessage(String.format(config.getPrompt(), config.getMaxChars())), new UserMessage(content.toString())))
+                .build();
+        ChatResponse response = chatMetrics.timeStage(ChatMetrics.PIPELINE_CHAT, "summarize", () -> chatLanguageModel.chat(request));
+        chatMetrics.recordTokenUsage(ChatMetrics.PIPELINE_CHAT, response.tokenUsage());
+        return response.aiMessage().text();
+    }
+
+    /**
+     * 本次应合并的轮数：未摘要轮数达到 keepRounds + triggerRounds 时，合并除最近 keepRounds 轮外最早的轮次，
+     * 单次最多 maxFoldRounds 轮；未达到触发条件时返回 0
+     */
+    static int foldRounds(long totalRounds, long coveredRounds, ChatModelProperties.Summary config) {
+        long unsummarized = totalRounds - coveredRounds;
+        if (unsummarized < config.getKeepRounds() + config.getTriggerRounds()) {
+            return 0;
+        }
+        return (int) Math.min(unsummarized - config.getKeepRounds(), config.getMaxFoldRounds());
+    }
+
+    /**
+     * 按用户提问分组为轮次，丢弃开头不完整的回答
+     */
+    static List<List<ChatHistoryDO>> toRounds(List<ChatHistoryDO> history) {
+        List<List<ChatHistoryDO>> rounds = new ArrayList<>();
+        for (ChatHistoryDO message : history) {
+            if (message.getType() == ChatType.USER_MESSAGE) {
+                rounds.add(new ArrayList<>());
+            }
+            if (!rounds.isEmpty()) {
+                rounds.get(rounds.size() - 1).add(message);
+            }
+        }
+        return rounds;
+    }
+
+    /**
+     * 最近 count 轮对话
+     */
+    static List<ChatHistoryDO> lastRounds(List<ChatHistoryDO> history, long count) {
+        int start = history.size();
+        long rounds = 0;
+        while (start > 0 && rounds < count) {
+            start--;
+            if (history.get(start).getType() == ChatType.USER_MESSAGE) {
+                rounds++;
+            }
+        }
+        return history.subList(start, history.size());
+    }
+}
@@ -0,0 +1,33 @@
+package com.xzf.blog.ai.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 摘要计算工具类
+ */
+public class HashUtil {
+
+    // 私有构造函数，防止实例化
+    private HashUtil() {
+        throw new AssertionError("工具类禁止实例化");
+    }
+
+    /**
+     * 计算文本的 SHA-256 摘要
+     *
+     * @param text 文本
+     * @return 64 位小写十六进制字符串
+     */
+    public static String sha256Hex(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // JDK 必定支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.xzf.blog.ai.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 对话历史分页游标工具类
+ * 游标是上一页最后一条消息的 id 经 Base64 编码后的字符串，对调用方不透明，
+ * 之后更换排序键时只需要调整编解码
+ */
+public class HistoryCursorUtil {
+
+    private static final String PREFIX = "h1:";
+
+    // 私有构造函数，防止实例化
+    private HistoryCursorUtil() {
+        throw new AssertionError("工具类禁止实例化");
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return 游标为空时返回 null，表示从最新的消息开始
+     * @throws IllegalArgumentException 游标格式不合法
+     */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (value.startsWith(PREFIX)) {
+                return Long.parseLong(value.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException ignored) {
+            // Base64 解码失败或 id 不是数字，按无效游标处理
+        }
+        throw new IllegalArgumentException("无效的分页游标: " + cursor);
+    }
+}
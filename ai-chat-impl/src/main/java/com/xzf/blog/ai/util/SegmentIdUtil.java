@@ -0,0 +1,48 @@
+package com.xzf.blog.ai.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 文章片段 ID 工具类
+ * 片段 ID 由 (文章ID, 片段内容摘要, 相同内容的出现次序) 确定性生成，内容不变时 ID 不变，用于增量索引
+ */
+public class SegmentIdUtil {
+
+    // 私有构造函数，防止实例化
+    private SegmentIdUtil() {
+        throw new AssertionError("工具类禁止实例化");
+    }
+
+    /**
+     * 生成片段 ID
+     * 使用基于名称的 UUID，长度固定为 36，满足 Milvus 主键字段长度限制。
+     * ID 不包含片段在文章中的位置，在前面插入或删除段落时其余片段的 ID 不变，不需要重新向量化
+     *
+     * @param articleId  文章ID
+     * @param text       片段内容
+     * @param occurrence 相同内容的片段在文章中第几次出现（从 0 开始），区分重复片段
+     * @return 片段 ID
+     */
+    public static String segmentId(Long articleId, String text, int occurrence) {
+        String name = articleId + ":" + HashUtil.sha256Hex(text) + ":" + occurrence;
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * 按文章中的顺序为各片段生成 ID，内容相同的片段按出现次序编号
+     */
+    public static List<String> segmentIds(Long articleId, List<String> texts) {
+        Map<String, Integer> occurrences = new HashMap<>();
+        List<String> ids = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            int occurrence = occurrences.merge(text, 1, Integer::sum) - 1;
+            ids.add(segmentId(articleId, text, occurrence));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,259 @@
+package com.xzf.blog.ai.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按句子边界对齐的滑动窗口切分
+ * 单次顺序读取文本，读取的同时合并空白字符，只缓存当前窗口附近的字符，按需逐个生成窗口；
+ * 窗口起止位置在容差范围内对齐到最近的句末标点（。！？.!?），避免从句子中间截断
+ */
+public class SentenceWindowSplitter {
+
+    // 私有构造函数，防止实例化
+    private SentenceWindowSplitter() {
+        throw new AssertionError("工具类禁止实例化");
+    }
+
+    /**
+     * 窗口大小（字符数）
+     */
+    public static final int WINDOW_SIZE = 400;
+
+    /**
+     * 滑动步长（字符数），与 {@link SlidingWindowUtil} 保持一致
+     */
+    public static final int STEP_SIZE = 300;
+
+    /**
+     * 对齐句子边界时窗口边缘允许移动的最大字符数
+     */
+    public static final int TOLERANCE = 50;
+
+    public static String[] split(CharSequence text) {
+        return stream(text).toArray(String[]::new);
+    }
+
+    public static Stream<String> stream(CharSequence text) {
+        return stream(text, WINDOW_SIZE, STEP_SIZE, TOLERANCE);
+    }
+
+    public static Stream<String> stream(CharSequence text, int windowSize, int stepSize, int tolerance) {
+        return toStream(iterator(text, windowSize, stepSize, tolerance));
+    }
+
+    /**
+     * 从 Reader 中流式切分，调用方负责关闭 Reader
+     */
+    public static Stream<String> stream(Reader reader, int windowSize, int stepSize, int tolerance) {
+        return toStream(iterator(reader, windowSize, stepSize, tolerance));
+    }
+
+    public static Iterator<String> iterator(CharSequence text, int windowSize, int stepSize, int tolerance) {
+        if (text == null) {
+            return new WindowIterator(() -> -1, windowSize, stepSize, tolerance);
+        }
+        int[] index = {0};
+        return new WindowIterator(() -> index[0] < text.length() ? text.charAt(index[0]++) : -1, windowSize, stepSize, tolerance);
+    }
+
+    public static Iterator<String> iterator(Reader reader, int windowSize, int stepSize, int tolerance) {
+        char[] chunk = new char[8192];
+        int[] state = {0, 0}; // 当前位置, 有效长度
+        return new WindowIterator(() -> {
+            if (state[0] == state[1]) {
+                try {
+                    state[1] = reader.read(chunk, 0, chunk.length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                state[0] = 0;
+                if (state[1] <= 0) {
+                    state[1] = 0;
+                    return -1;
+                }
+            }
+            return chunk[state[0]++];
+        }, windowSize, stepSize, tolerance);
+    }
+
+    private static Stream<String> toStream(Iterator<String> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private interface CharSource {
+        /**
+         * @return 下一个字符，读取完毕返回 -1
+         */
+        int read();
+    }
+
+    private static final class WindowIterator implements Iterator<String> {
+
+        private final CharSource source;
+
+        private final int windowSize;
+
+        private final int stepSize;
+
+        private final int tolerance;
+
+        /**
+         * 已读取并合并空白的字符，下标 0 始终是当前窗口的起点
+         */
+        private final StringBuilder buffer;
+
+        private boolean pendingSpace;
+
+        private boolean eof;
+
+        private boolean finished;
+
+        private String next;
+
+        private WindowIterator(CharSource source, int windowSize, int stepSize, int tolerance) {
+            if (windowSize <= 0 || stepSize <= 0 || tolerance < 0 || tolerance >= stepSize) {
+                throw new IllegalArgumentException("窗口参数不合法: windowSize=" + windowSize + ", stepSize=" + stepSize + ", tolerance=" + tolerance);
+            }
+            this.source = source;
+            this.windowSize = windowSize;
+            this.stepSize = stepSize;
+            this.tolerance = tolerance;
+            this.buffer = new StringBuilder(windowSize + tolerance + 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !finished) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String window = next;
+            next = null;
+            return window;
+        }
+
+        /**
+         * 生成下一个窗口，窗口内容为空白时返回 null
+         */
+        private String advance() {
+            // 多读一个字符用于判断英文句点后是否为空格
+            fill(windowSize + tolerance + 1);
+            int length = buffer.length();
+            if (length == 0) {
+                finished = true;
+                return null;
+            }
+
+            int end = eof && length <= windowSize ? length : snap(windowSize, length);
+            String window = trimmed(end);
+            if (eof && end >= length) {
+                finished = true;
+                buffer.setLength(0);
+                return window;
+            }
+
+            int nextStart = Math.max(1, Math.min(snap(stepSize, end), end));
+            buffer.delete(0, nextStart);
+            return window;
+        }
+
+        private void fill(int size) {
+            while (buffer.length() < size && !eof) {
+                int c = source.read();
+                if (c < 0) {
+                    eof = true;
+                } else if (Character.isWhitespace(c)) {
+                    // 窗口起点的空白直接丢弃
+                    pendingSpace = buffer.length() > 0;
+                } else {
+                    if (pendingSpace) {
+                        buffer.append(' ');
+                        pendingSpace = false;
+                    }
+                    buffer.append((char) c);
+                }
+            }
+        }
+
+        /**
+         * 在 [target - tolerance, target + tolerance] 内寻找离 target 最近的句子边界，找不到时返回 target
+         */
+        private int snap(int target, int limit) {
+            for (int d = 0; d <= tolerance; d++) {
+                if (isBoundary(target - d, limit)) {
+                    return target - d;
+                }
+                if (isBoundary(target + d, limit)) {
+                    return target + d;
+                }
+            }
+            return Math.min(target, limit);
+        }
+
+        /**
+         * pos 位于句末标点（及其后的右引号、右括号）之后
+         */
+        private boolean isBoundary(int pos, int limit) {
+            if (pos <= 0 || pos > limit) {
+                return false;
+            }
+            if (pos < buffer.length()) {
+                char after = buffer.charAt(pos);
+                // 连续的标点和右引号属于同一个句尾
+                if (isClosing(after) || isTerminator(after)) {
+                    return false;
+                }
+            }
+            int i = pos - 1;
+            while (i >= 0 && isClosing(buffer.charAt(i))) {
+                i--;
+            }
+            if (i < 0) {
+                return false;
+            }
+            char c = buffer.charAt(i);
+            if (c == '。' || c == '！' || c == '？' || c == '!' || c == '?') {
+                return true;
+            }
+            if (c == '.') {
+                // 英文句点后需要是空格或文本结尾，排除小数和缩写中的点
+                return pos < buffer.length() ? buffer.charAt(pos) == ' ' : eof;
+            }
+            return false;
+        }
+
+        private String trimmed(int end) {
+            int start = 0;
+            while (start < end && buffer.charAt(start) == ' ') {
+                start++;
+            }
+            while (end > start && buffer.charAt(end - 1) == ' ') {
+                end--;
+            }
+            return start == end ? null : buffer.substring(start, end);
+        }
+
+        private static boolean isTerminator(char c) {
+            return c == '。' || c == '！' || c == '？' || c == '.' || c == '!' || c == '?';
+        }
+
+        private static boolean isClosing(char c) {
+            return c == '”' || c == '’' || c == '"' || c == '\'' || c == '）' || c == ')' || c == '」' || c == '』' || c == '】';
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.xzf.blog.ai.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * token 估算工具类
+ * 不依赖具体模型的分词器，中日韩字符及全角标点按 1 个 token 计，其余非空白字符按 4 个字符 1 个 token 计，
+ * 用于决定长文本的处理方式，不用于精确计费
+ */
+public class TokenUtil {
+
+    // 私有构造函数，防止实例化
+    private TokenUtil() {
+        throw new AssertionError("工具类禁止实例化");
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            if (Character.isWhitespace(codePoint)) {
+                continue;
+            }
+            if (isCjk(codePoint)) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 按顺序把切分片段合并为不超过 maxTokens 的分块，片段之间以换行连接；
+     * 单个片段超过上限时按 maxTokens 个字符硬切（每个字符至多 1 个 token，切出的分块不会超限）
+     */
+    public static List<String> pack(Stream<String> pieces, int maxTokens) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("分块 token 上限必须大于 0: " + maxTokens);
+        }
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        Iterator<String> iterator = pieces.iterator();
+        while (iterator.hasNext()) {
+            String piece = iterator.next();
+            if (piece == null || piece.isBlank()) {
+                continue;
+            }
+            int tokens = estimate(piece);
+            if (currentTokens > 0 && currentTokens + tokens > maxTokens) {
+                chunks.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+            if (tokens > maxTokens) {
+                hardSplit(piece, maxTokens, chunks);
+                continue;
+            }
+            if (currentTokens > 0) {
+                current.append('\n');
+            }
+            current.append(piece);
+            currentTokens += tokens;
+        }
+        if (currentTokens > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    private static void hardSplit(String piece, int maxChars, List<String> chunks) {
+        int start = 0;
+        while (start < piece.length()) {
+            int end = Math.min(start + maxChars, piece.length());
+            // 不拆开代理对
+            if (end < piece.length() && end - start > 1 && Character.isHighSurrogate(piece.charAt(end - 1))) {
+                end--;
+            }
+            String chunk = piece.substring(start, end);
+            if (!chunk.isBlank()) {
+                chunks.add(chunk);
+            }
+            start = end;
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        if (script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL) {
+            return true;
+        }
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(codePoint);
+        return block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS;
+    }
+}
@@ -0,0 +1,65 @@
+package com.xzf.blog.ai.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 向量工具类
+ */
+public class VectorUtil {
+
+    // 私有构造函数，防止实例化
+    private VectorUtil() {
+        throw new AssertionError("工具类禁止实例化");
+    }
+
+    /**
+     * 将向量按小端序打包为字节数组（每个分量 4 字节）
+     *
+     * @param vector 向量
+     * @return 字节数组
+     */
+    public static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    /**
+     * 将 {@link #toBytes(float[])} 打包的字节数组还原为向量
+     *
+     * @param bytes 字节数组
+     * @return 向量，字节长度不合法时返回 null
+     */
+    public static float[] fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0 || bytes.length % Float.BYTES != 0) {
+            return null;
+        }
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * 余弦相似度
+     *
+     * @return 相似度，维度不一致或存在零向量时返回 0
+     */
+    public static double cosine(float[] a, float[] b) {
+        if (a == null || b == null || a.length != b.length) {
+            return 0;
+        }
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0 || normB == 0) {
+            return 0;
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+}
@@ -0,0 +1,213 @@
+package com.xzf.blog.ai.buffer;
+
+import com.xzf.blog.ai.commons.enums.ChatType;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.manager.ChatHistoryManager;
+import com.xzf.blog.ai.model.ChatHistoryDO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatHistoryWriteBufferTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private final RecordingManager manager = new RecordingManager();
+
+    private ChatHistoryWriteBuffer buffer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        manager.writerGate.countDown();
+        if (buffer != null) {
+            buffer.destroy();
+        }
+    }
+
+    @Test
+    void shouldFlushWhenBatchIsFull() throws InterruptedException {
+        buffer = start(2, 60_000, 100);
+        LocalDateTime askedAt = LocalDateTime.now().minusSeconds(5);
+        List<ChatHistoryDO> round = round("c1");
+        round.get(0).setCreateTime(askedAt);
+
+        buffer.add(round);
+
+        await(() -> manager.batches.size() == 1);
+        assertEquals(2, manager.batches.get(0).size());
+        // 提问保留请求到达时间，回答在提问之后分配 id
+        assertEquals(askedAt, round.get(0).getCreateTime());
+        assertTrue(round.get(0).getId() < round.get(1).getId());
+    }
+
+    @Test
+    void shouldFlushWhenIntervalElapses() throws InterruptedException {
+        buffer = start(100, 50, 100);
+
+        buffer.add(round("c1"));
+
+        await(() -> buffer.getFlushRowCount() == 2);
+        assertEquals(1, buffer.getFlushBatchCount());
+    }
+
+    @Test
+    void shouldWriteSynchronouslyWhenQueueIsFull() throws InterruptedException {
+        manager.writerGate = new CountDownLatch(1);
+        buffer = start(2, 10, 2);
+
+        // 第一轮被写入线程取出后阻塞在写库，第二轮占满队列
+        buffer.add(round("c1"));
+        assertTrue(manager.writerEntered.await(5, TimeUnit.SECONDS));
+        buffer.add(round("c1"));
+        assertEquals(2, buffer.pendingRounds(1L, "c1"));
+
+        List<ChatHistoryDO> third = round("c1");
+        buffer.add(third);
+
+        assertEquals(2, buffer.getSyncWriteCount());
+        assertEquals(third, manager.batches.get(0));
+        manager.writerGate.countDown();
+        await(() -> buffer.getFlushRowCount() == 4 && buffer.pendingRounds(1L, "c1") == 0);
+    }
+
+    @Test
+    void shouldCountBatchBeingWrittenExactlyOnce() throws Exception {
+        manager.writerGate = new CountDownLatch(1);
+        buffer = start(2, 10, 100);
+        buffer.add(round("c1"));
+        assertTrue(manager.writerEntered.await(5, TimeUnit.SECONDS));
+
+        // 写入线程提交期间重建计数需等待提交完成，之后只从数据库中数到这一轮
+        CompletableFuture<Long> rounds = CompletableFuture.supplyAsync(() -> buffer.countRounds(1L, "c1", manager::persistedQuestions));
+        Thread.sleep(50);
+        assertFalse(rounds.isDone());
+        manager.writerGate.countDown();
+
+        assertEquals(1, rounds.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldSpoolFailedBatchAndReplayWhenIdle() throws InterruptedException {
+        manager.failures = 1;
+        buffer = start(2, 20, 100);
+        List<ChatHistoryDO> round = round("c1");
+
+        buffer.add(round);
+
+        await(() -> buffer.getSpoolRowCount() == 2);
+        await(() -> manager.batches.size() == 1 && spoolFiles() == 0);
+        assertEquals(round.stream().map(ChatHistoryDO::getId).toList(),
+                manager.batches.get(0).stream().map(ChatHistoryDO::getId).toList());
+    }
+
+    @Test
+    void shouldSpoolWhenSynchronousWriteFails() {
+        manager.failures = 1;
+        ChatModelProperties properties = new ChatModelProperties();
+        properties.getHistoryWrite().setEnabled(false);
+        properties.getHistoryWrite().setSpoolDir(spoolDir.toString());
+        buffer = new ChatHistoryWriteBuffer(manager, properties);
+        buffer.init();
+
+        // 未开启异步写入时同步写库，失败不抛给调用方而是落盘
+        buffer.add(round("c1"));
+
+        assertEquals(2, buffer.getSpoolRowCount());
+        assertEquals(1, spoolFiles());
+    }
+
+    @Test
+    void shouldRequireAbsoluteSpoolDir() {
+        ChatModelProperties properties = new ChatModelProperties();
+        properties.getHistoryWrite().setSpoolDir("data/chat-history-spool");
+
+        assertThrows(IllegalStateException.class, () -> new ChatHistoryWriteBuffer(manager, properties).init());
+    }
+
+    private ChatHistoryWriteBuffer start(int batchSize, long flushIntervalMillis, int capacity) {
+        ChatModelProperties properties = new ChatModelProperties();
+        ChatModelProperties.HistoryWrite config = properties.getHistoryWrite();
+        config.setBatchSize(batchSize);
+        config.setFlushIntervalMillis(flushIntervalMillis);
+        config.setCapacity(capacity);
+        config.setOfferTimeoutMillis(10);
+        config.setSpoolDir(spoolDir.toString());
+        ChatHistoryWriteBuffer started = new ChatHistoryWriteBuffer(manager, properties);
+        started.init();
+        return started;
+    }
+
+    private static List<ChatHistoryDO> round(String conversationKey) {
+        return List.of(
+                ChatHistoryDO.builder().accountId(1L).conversationKey(conversationKey).type(ChatType.USER_MESSAGE).content("问").build(),
+                ChatHistoryDO.builder().accountId(1L).conversationKey(conversationKey).type(ChatType.AI_MESSAGE).content("答").build());
+    }
+
+    private long spoolFiles() {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.count();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingManager extends ChatHistoryManager {
+
+        private final List<List<ChatHistoryDO>> batches = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch writerEntered = new CountDownLatch(1);
+
+        private volatile CountDownLatch writerGate = new CountDownLatch(0);
+
+        private volatile int failures;
+
+        @Override
+        public boolean saveBatch(Collection<ChatHistoryDO> entityList) {
+            if (Thread.currentThread().getName().equals("chat-history-writer")) {
+                writerEntered.countDown();
+                try {
+                    writerGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("数据库不可用");
+            }
+            batches.add(new ArrayList<>(entityList));
+            return true;
+        }
+
+        private long persistedQuestions() {
+            return batches.stream().flatMap(List::stream).filter(record -> record.getType() == ChatType.USER_MESSAGE).count();
+        }
+    }
+}
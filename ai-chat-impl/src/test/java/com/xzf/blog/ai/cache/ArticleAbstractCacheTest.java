@@ -0,0 +1,26 @@
+package com.xzf.blog.ai.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ArticleAbstractCacheTest {
+
+    @Test
+    void shouldIgnoreWhitespaceOnlyChanges() {
+        assertEquals(ArticleAbstractCache.contentHash("第一段。\n\n第二段。"),
+                ArticleAbstractCache.contentHash("  第一段。 第二段。\t"));
+    }
+
+    @Test
+    void shouldDetectContentChanges() {
+        assertNotEquals(ArticleAbstractCache.contentHash("第一段。第二段。"),
+                ArticleAbstractCache.contentHash("第一段。第三段。"));
+    }
+
+    @Test
+    void shouldTreatNullAsEmpty() {
+        assertEquals(ArticleAbstractCache.contentHash(""), ArticleAbstractCache.contentHash(null));
+    }
+}
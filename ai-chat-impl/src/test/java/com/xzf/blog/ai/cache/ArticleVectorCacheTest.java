@@ -0,0 +1,56 @@
+package com.xzf.blog.ai.cache;
+
+import com.xzf.blog.ai.store.ArticleEmbeddingStore;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArticleVectorCacheTest {
+
+    private static ArticleEmbeddingStore.StoredSegment segment(String id, float... vector) {
+        return new ArticleEmbeddingStore.StoredSegment(id, vector, TextSegment.from("片段" + id));
+    }
+
+    private static final ArticleVectorCache.ArticleVectors VECTORS = ArticleVectorCache.ArticleVectors.of(List.of(
+            segment("a", 1f, 0f, 0f, 0f, 0f),
+            segment("b", 3f, 3f, 0f, 0f, 0f),
+            segment("c", 0f, 2f, 0f, 0f, 0f),
+            segment("d", -1f, 0f, 0f, 0f, 0f),
+            segment("e", 0f, 0f, 0f, 0f, 0f)));
+
+    @Test
+    void shouldReturnTopKByCosineRelevance() {
+        List<EmbeddingMatch<TextSegment>> matches = VECTORS.search(new float[]{2f, 1f, 0f, 0f, 0f}, 3, 0);
+
+        assertEquals(List.of("b", "a", "c"), matches.stream().map(EmbeddingMatch::embeddingId).toList());
+        // 余弦相似度映射为 [0,1] 的相关性分数，与向量库一致
+        assertEquals((3.0 / Math.sqrt(10) + 1) / 2, matches.get(0).score(), 1e-6);
+        assertEquals("片段b", matches.get(0).embedded().text());
+    }
+
+    @Test
+    void shouldFilterByMinScore() {
+        List<EmbeddingMatch<TextSegment>> matches = VECTORS.search(new float[]{1f, 0f, 0f, 0f, 0f}, 10, 0.75);
+
+        assertEquals(List.of("a", "b"), matches.stream().map(EmbeddingMatch::embeddingId).toList());
+    }
+
+    @Test
+    void shouldHandleEmptyArticleAndZeroQuery() {
+        assertTrue(ArticleVectorCache.ArticleVectors.of(List.of()).search(new float[]{1f}, 3, 0).isEmpty());
+        assertTrue(VECTORS.search(new float[5], 3, 0).isEmpty());
+    }
+
+    @Test
+    void shouldRejectDimensionMismatch() {
+        assertThrows(IllegalArgumentException.class, () -> VECTORS.search(new float[]{1f, 0f}, 3, 0));
+        assertThrows(IllegalStateException.class, () -> ArticleVectorCache.ArticleVectors.of(List.of(
+                segment("a", 1f, 0f), segment("b", 1f))));
+    }
+}
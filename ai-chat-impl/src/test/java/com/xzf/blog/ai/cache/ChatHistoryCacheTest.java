@@ -0,0 +1,57 @@
+package com.xzf.blog.ai.cache;
+
+import com.xzf.blog.ai.commons.enums.ChatType;
+import com.xzf.blog.ai.model.ChatHistoryDO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ChatHistoryCacheTest {
+
+    @Test
+    void shouldServeFullPageNewestFirst() {
+        List<ChatHistoryDO> cached = messages(1, 4);
+
+        ChatHistoryCache.Latest latest = ChatHistoryCache.cover(cached, 4, 10L);
+
+        assertEquals(List.of(4L, 3L, 2L, 1L), latest.records().stream().map(ChatHistoryDO::getId).toList());
+        assertEquals(20, latest.total());
+    }
+
+    @Test
+    void shouldServeShortConversationWhenCacheHoldsAllMessages() {
+        ChatHistoryCache.Latest latest = ChatHistoryCache.cover(messages(1, 4), 10, 2L);
+
+        assertEquals(4, latest.records().size());
+        assertEquals(4, latest.total());
+    }
+
+    @Test
+    void shouldFallBackWhenCacheMayMissMessages() {
+        // 进行中的一轮已计数但尚未写入缓存
+        assertNull(ChatHistoryCache.cover(messages(1, 4), 10, 3L));
+        // 轮次计数已过期
+        assertNull(ChatHistoryCache.cover(messages(1, 4), 4, null));
+    }
+
+    @Test
+    void shouldFallBackWhenCachedMessagesHaveNoId() {
+        List<ChatHistoryDO> cached = new ArrayList<>(messages(1, 3));
+        cached.add(ChatHistoryDO.builder().type(ChatType.AI_MESSAGE).content("a").build());
+
+        assertNull(ChatHistoryCache.cover(cached, 4, 2L));
+    }
+
+    private static List<ChatHistoryDO> messages(long fromId, long toId) {
+        List<ChatHistoryDO> messages = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            ChatType type = id % 2 == 1 ? ChatType.USER_MESSAGE : ChatType.AI_MESSAGE;
+            messages.add(ChatHistoryDO.builder().id(id).type(type).content("m" + id).build());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,123 @@
+package com.xzf.blog.ai.cache;
+
+import com.xzf.blog.ai.buffer.ChatHistoryWriteBuffer;
+import com.xzf.blog.ai.commons.constant.RedisConstants;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.manager.ChatHistoryManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatRoundCounterTest {
+
+    private static final String KEY = RedisConstants.getChatRoundKey(1L, "c1");
+
+    private final ScriptRedisTemplate redis = new ScriptRedisTemplate();
+
+    @Test
+    void shouldRejectWhenRoundReachesLimit() {
+        redis.values.put(KEY, "0");
+        ChatRoundCounter counter = counter(0, 0);
+
+        assertTrue(counter.tryAcquire(1L, "c1", 2));
+        assertTrue(counter.tryAcquire(1L, "c1", 2));
+        assertFalse(counter.tryAcquire(1L, "c1", 2));
+        assertEquals("2", redis.values.get(KEY));
+    }
+
+    @Test
+    void shouldRebuildFromDatabaseAndPendingWritesOnMiss() {
+        ChatRoundCounter counter = counter(1, 1);
+
+        // 已落库 1 轮，缓冲中 1 轮，重建为 2 后占用第 3 轮
+        assertTrue(counter.tryAcquire(1L, "c1", 3));
+        assertEquals("3", redis.values.get(KEY));
+        assertFalse(counter.tryAcquire(1L, "c1", 3));
+    }
+
+    @Test
+    void shouldKeepExistingRoundWhenRebuildRaces() {
+        ChatRoundCounter counter = counter(0, 0);
+        // 第一次执行脚本时计数不存在，重建前另一个请求已写入计数
+        redis.onMiss = () -> redis.values.put(KEY, "5");
+
+        assertFalse(counter.tryAcquire(1L, "c1", 5));
+        assertEquals("5", redis.values.get(KEY));
+    }
+
+    @Test
+    void shouldReleaseAcquiredRoundButNotBelowZero() {
+        redis.values.put(KEY, "1");
+        ChatRoundCounter counter = counter(0, 0);
+
+        assertFalse(counter.tryAcquire(1L, "c1", 1));
+        counter.release(1L, "c1");
+        assertTrue(counter.tryAcquire(1L, "c1", 1));
+        counter.release(1L, "c1");
+        counter.release(1L, "c1");
+        assertEquals("0", redis.values.get(KEY));
+    }
+
+    private ChatRoundCounter counter(long dbRounds, long pendingRounds) {
+        ChatHistoryManager manager = new ChatHistoryManager() {
+            @Override
+            public long getRound(Long userId, String conversationKey) {
+                return dbRounds;
+            }
+        };
+        ChatHistoryWriteBuffer buffer = new ChatHistoryWriteBuffer() {
+            @Override
+            public long pendingRounds(Long userId, String conversationKey) {
+                return pendingRounds;
+            }
+        };
+        return new ChatRoundCounter(redis, manager, buffer, new ChatModelProperties());
+    }
+
+    /**
+     * 按 ChatRoundCounter 中 Lua 脚本的语义在内存中执行，脚本本身需在 Redis 上验证
+     */
+    private static class ScriptRedisTemplate extends StringRedisTemplate {
+
+        private final Map<String, String> values = new HashMap<>();
+
+        private Runnable onMiss;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            String key = keys.get(0);
+            String round = values.get(key);
+            if (script == ChatRoundCounter.RELEASE_SCRIPT) {
+                if (round != null && Long.parseLong(round) > 0) {
+                    values.put(key, String.valueOf(Long.parseLong(round) - 1));
+                    return (T) Long.valueOf(Long.parseLong(round) - 1);
+                }
+                return (T) Long.valueOf(0);
+            }
+            if (round == null) {
+                if (args.length < 3) {
+                    if (onMiss != null) {
+                        onMiss.run();
+                    }
+                    return (T) Long.valueOf(-1);
+                }
+                round = (String) args[2];
+                values.put(key, round);
+            }
+            if (Long.parseLong(round) >= Long.parseLong((String) args[0])) {
+                return (T) Long.valueOf(0);
+            }
+            values.put(key, String.valueOf(Long.parseLong(round) + 1));
+            return (T) Long.valueOf(1);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.xzf.blog.ai.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryEmbeddingCacheTest {
+
+    @Test
+    void shouldNormalizeNearVerbatimQueriesToSameText() {
+        String expected = QueryEmbeddingCache.normalizeQuery("什么是 RAG");
+
+        assertEquals(expected, QueryEmbeddingCache.normalizeQuery("  什么是   rag？ "));
+        assertEquals(expected, QueryEmbeddingCache.normalizeQuery("什么是\tＲＡＧ?"));
+        assertEquals(expected, QueryEmbeddingCache.normalizeQuery("什么是 RAG。"));
+    }
+
+    @Test
+    void shouldReturnEmptyTextForNullQuery() {
+        assertEquals("", QueryEmbeddingCache.normalizeQuery(null));
+    }
+}
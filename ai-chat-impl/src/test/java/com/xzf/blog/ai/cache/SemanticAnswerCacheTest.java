@@ -0,0 +1,62 @@
+package com.xzf.blog.ai.cache;
+
+import com.xzf.blog.ai.util.VectorUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SemanticAnswerCacheTest {
+
+    @Test
+    void shouldPickMostSimilarEntryAboveThreshold() {
+        SemanticAnswerCache.Entry near = entry("near", new float[]{1f, 0.1f});
+        SemanticAnswerCache.Entry nearest = entry("nearest", new float[]{1f, 0.01f});
+        SemanticAnswerCache.Entry far = entry("far", new float[]{0f, 1f});
+
+        SemanticAnswerCache.Entry best = SemanticAnswerCache.findBest(List.of(near, far, nearest), new float[]{1f, 0f}, 0.9);
+
+        assertEquals("nearest", best.getQuestion());
+    }
+
+    @Test
+    void shouldMissWhenNoEntryReachesThreshold() {
+        SemanticAnswerCache.Entry far = entry("far", new float[]{0f, 1f});
+
+        assertNull(SemanticAnswerCache.findBest(List.of(far), new float[]{1f, 0f}, 0.9));
+        assertNull(SemanticAnswerCache.findBest(List.of(), new float[]{1f, 0f}, 0.9));
+    }
+
+    @Test
+    void shouldWeighScopeByVectorAndTextSize() {
+        SemanticAnswerCache.Entry entry = SemanticAnswerCache.Entry.builder()
+                .question("问题")
+                .vector(new byte[16])
+                .answer("答案内容")
+                .contexts(List.of("片段一", "片段二"))
+                .build();
+
+        // 向量 16 字节，问题 2 字、答案 4 字、片段 6 字，每字 2 字节
+        assertEquals(16 + 24, SemanticAnswerCache.weight(List.of(entry)));
+        assertEquals(1, SemanticAnswerCache.weight(List.of()));
+    }
+
+    @Test
+    void shouldEvictOldestEntriesToMakeRoom() {
+        Map<String, SemanticAnswerCache.Entry> entries = Map.of(
+                "a", SemanticAnswerCache.Entry.builder().question("a").createTime(300).build(),
+                "b", SemanticAnswerCache.Entry.builder().question("b").createTime(100).build(),
+                "c", SemanticAnswerCache.Entry.builder().question("c").createTime(200).build());
+
+        assertEquals(List.of("b"), SemanticAnswerCache.evictionCandidates(entries, 2));
+        assertEquals(List.of("b", "c"), SemanticAnswerCache.evictionCandidates(entries, 1));
+        assertEquals(List.of(), SemanticAnswerCache.evictionCandidates(entries, 3));
+    }
+
+    private static SemanticAnswerCache.Entry entry(String question, float[] vector) {
+        return SemanticAnswerCache.Entry.builder().question(question).vector(VectorUtil.toBytes(vector)).build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.xzf.blog.ai.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchingEmbeddingModelTest {
+
+    @Test
+    void shouldCoalesceConcurrentCallsAndFanOutResults() throws Exception {
+        RecordingEmbeddingModel delegate = new RecordingEmbeddingModel();
+        ExecutorService callers = Executors.newFixedThreadPool(20);
+        try (BatchingEmbeddingModel model = new BatchingEmbeddingModel(delegate, 8, 50, 2, 5_000)) {
+            List<CompletableFuture<Embedding>> futures = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                String text = "x".repeat(i);
+                futures.add(CompletableFuture.supplyAsync(() -> model.embed(text).content(), callers));
+            }
+
+            for (int i = 1; i <= 20; i++) {
+                // 向量第一维为文本长度，校验结果回填给了正确的调用方
+                assertEquals(i, futures.get(i - 1).get().vector()[0]);
+            }
+            assertTrue(delegate.batchSizes.size() < 20, "并发调用应被合并: " + delegate.batchSizes);
+            assertTrue(delegate.batchSizes.stream().allMatch(size -> size <= 8));
+            assertEquals(20, delegate.batchSizes.stream().mapToInt(Integer::intValue).sum());
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    void shouldDispatchSingleCallWithinWindow() {
+        RecordingEmbeddingModel delegate = new RecordingEmbeddingModel();
+        try (BatchingEmbeddingModel model = new BatchingEmbeddingModel(delegate, 8, 5, 1, 5_000)) {
+            long start = System.nanoTime();
+
+            Embedding embedding = model.embed("abc").content();
+
+            assertEquals(3, embedding.vector()[0]);
+            assertTrue(System.nanoTime() - start < 1_000_000_000L);
+            assertEquals(List.of(1), delegate.batchSizes);
+        }
+    }
+
+    @Test
+    void shouldPropagateDelegateFailureToCallers() {
+        EmbeddingModel failing = segments -> {
+            throw new IllegalStateException("rate limited");
+        };
+        try (BatchingEmbeddingModel model = new BatchingEmbeddingModel(failing, 8, 5, 1, 5_000)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> model.embed("abc"));
+            assertEquals("rate limited", e.getMessage());
+        }
+    }
+
+    @Test
+    void shouldPassEmbedAllThroughWithoutBatching() {
+        RecordingEmbeddingModel delegate = new RecordingEmbeddingModel();
+        try (BatchingEmbeddingModel model = new BatchingEmbeddingModel(delegate, 2, 5, 1, 5_000)) {
+            List<Embedding> embeddings = model.embedAll(List.of(TextSegment.from("a"), TextSegment.from("bb"), TextSegment.from("ccc"))).content();
+
+            assertEquals(3, embeddings.size());
+            assertEquals(List.of(3), delegate.batchSizes);
+        }
+    }
+
+    @Test
+    void shouldFallBackToDelegateWhenBatchResultTimesOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmbeddingModel stuck = new RecordingEmbeddingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+                // 合并后的批次一直不返回，调用方线程的直接调用正常返回
+                if (Thread.currentThread().getName().startsWith("embedding-batch-")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.embedAll(textSegments);
+            }
+        };
+        try (BatchingEmbeddingModel model = new BatchingEmbeddingModel(stuck, 8, 1, 1, 50)) {
+            assertEquals(3, model.embed("abc").content().vector()[0]);
+            assertEquals(1, model.getFallbackCount());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void shouldExportBatchMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (BatchingEmbeddingModel model = new BatchingEmbeddingModel(new RecordingEmbeddingModel(), 8, 1, 1, 5_000)) {
+            model.bindTo(registry);
+
+            model.embed("abc");
+
+            assertEquals(1, registry.get("ai.embedding.batch.batches").functionCounter().count());
+            assertEquals(1, registry.get("ai.embedding.batch.texts").functionCounter().count());
+            assertEquals(0, registry.get("ai.embedding.batch.fallbacks").functionCounter().count());
+        }
+    }
+
+    private static class RecordingEmbeddingModel implements EmbeddingModel {
+
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            batchSizes.add(textSegments.size());
+            return Response.from(textSegments.stream()
+                    .map(segment -> Embedding.from(new float[]{segment.text().length(), 1f}))
+                    .toList());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.xzf.blog.ai.embedding;
+
+import com.sun.net.httpserver.HttpServer;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ZhipuAiBatchEmbeddingModelTest {
+
+    private HttpServer server;
+
+    private final List<ZhipuAiBatchEmbeddingModel.EmbeddingRequest> requests = new CopyOnWriteArrayList<>();
+
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    /**
+     * 前 failures 次请求返回 429
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/paas/v4/embeddings", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] response;
+            int status;
+            if (failures.getAndDecrement() > 0) {
+                status = 429;
+                response = "{\"error\":{\"code\":\"1302\"}}".getBytes(StandardCharsets.UTF_8);
+            } else {
+                ZhipuAiBatchEmbeddingModel.EmbeddingRequest request = JsonUtils.parseObject(body, ZhipuAiBatchEmbeddingModel.EmbeddingRequest.class);
+                requests.add(request);
+                status = 200;
+                response = JsonUtils.toJsonString(responseFor(request)).getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldSendSegmentsAsArrayInput() {
+        List<TextSegment> segments = IntStream.rangeClosed(1, 70).mapToObj(i -> TextSegment.from("x".repeat(i))).toList();
+
+        Response<List<Embedding>> response = model(0).embedAll(segments);
+
+        // 70 条文本按单次 64 条拆成两次请求
+        assertEquals(List.of(64, 6), requests.stream().map(request -> request.getInput().size()).toList());
+        assertEquals(70, response.content().size());
+        for (int i = 0; i < 70; i++) {
+            // 向量第一维为文本长度，校验服务端乱序返回时仍按 index 回填
+            assertEquals(i + 1, response.content().get(i).vector()[0]);
+        }
+        assertEquals(70, response.tokenUsage().inputTokenCount());
+        assertEquals("Bearer test-key", authorizations.get(0));
+        assertEquals(256, requests.get(0).getDimensions());
+    }
+
+    @Test
+    void shouldRetryRateLimitedRequests() {
+        failures.set(1);
+
+        Response<List<Embedding>> response = model(1).embedAll(List.of(TextSegment.from("abc")));
+
+        assertEquals(3, response.content().get(0).vector()[0]);
+        assertEquals(2, authorizations.size());
+    }
+
+    @Test
+    void shouldFailAfterRetriesAreExhausted() {
+        failures.set(2);
+
+        assertThrows(IllegalStateException.class, () -> model(1).embedAll(List.of(TextSegment.from("abc"))));
+    }
+
+    private ZhipuAiBatchEmbeddingModel model(int maxRetries) {
+        return ZhipuAiBatchEmbeddingModel.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .apiKey("test-key")
+                .model("embedding-3")
+                .dimensions(256)
+                .maxRetries(maxRetries)
+                .build();
+    }
+
+    private static ZhipuAiBatchEmbeddingModel.EmbeddingResponse responseFor(ZhipuAiBatchEmbeddingModel.EmbeddingRequest request) {
+        List<ZhipuAiBatchEmbeddingModel.EmbeddingData> data = new ArrayList<>();
+        for (int i = request.getInput().size() - 1; i >= 0; i--) {
+            data.add(new ZhipuAiBatchEmbeddingModel.EmbeddingData(i, new float[]{request.getInput().get(i).length(), 1f}));
+        }
+        ZhipuAiBatchEmbeddingModel.EmbeddingResponse response = new ZhipuAiBatchEmbeddingModel.EmbeddingResponse();
+        response.setData(data);
+        response.setUsage(new ZhipuAiBatchEmbeddingModel.Usage(request.getInput().size(), request.getInput().size()));
+        return response;
+    }
+}
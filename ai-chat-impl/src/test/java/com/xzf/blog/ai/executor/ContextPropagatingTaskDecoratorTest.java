@@ -0,0 +1,55 @@
+package com.xzf.blog.ai.executor;
+
+import com.xzf.framework.biz.context.holder.LoginUserContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContextPropagatingTaskDecoratorTest {
+
+    private final ContextPropagatingTaskDecorator decorator = new ContextPropagatingTaskDecorator();
+
+    @AfterEach
+    void tearDown() {
+        LoginUserContextHolder.remove();
+        MDC.clear();
+    }
+
+    @Test
+    void shouldPropagateContextToVirtualThread() throws InterruptedException {
+        LoginUserContextHolder.setUserId(42L);
+        MDC.put("traceId", "trace-1");
+        AtomicReference<Long> userId = new AtomicReference<>();
+        AtomicReference<String> traceId = new AtomicReference<>();
+
+        Runnable task = decorator.decorate(() -> {
+            userId.set(LoginUserContextHolder.getUserId());
+            traceId.set(MDC.get("traceId"));
+        });
+        Thread.ofVirtual().start(task).join();
+
+        assertEquals(42L, userId.get());
+        assertEquals("trace-1", traceId.get());
+    }
+
+    @Test
+    void shouldRestoreCallerContextAfterRun() {
+        LoginUserContextHolder.setUserId(1L);
+        MDC.put("traceId", "submitter");
+        Runnable task = decorator.decorate(() -> assertEquals("submitter", MDC.get("traceId")));
+
+        // 模拟 CallerRunsPolicy：由另一个上下文的线程直接执行
+        LoginUserContextHolder.remove();
+        MDC.clear();
+        MDC.put("traceId", "runner");
+        task.run();
+
+        assertNull(LoginUserContextHolder.getUserId());
+        assertEquals("runner", MDC.get("traceId"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.xzf.blog.ai.lexical;
+
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LexicalIndexTest {
+
+    @Test
+    void shouldRankSegmentsByBm25() {
+        LexicalIndex index = new LexicalIndex();
+        index.replaceArticle(1L, List.of("a", "b", "c"), List.of(
+                TextSegment.from("Redis 分布式锁的实现，分布式锁需要设置过期时间"),
+                TextSegment.from("Milvus 向量检索的索引类型"),
+                TextSegment.from("分布式事务与消息队列")));
+
+        List<LexicalIndex.Hit> hits = index.search(null, "分布式锁", 3);
+
+        assertEquals("a", hits.get(0).id());
+        assertEquals(List.of("a", "c"), hits.stream().map(LexicalIndex.Hit::id).toList());
+    }
+
+    @Test
+    void shouldFilterByArticleAndReplaceSegments() {
+        LexicalIndex index = new LexicalIndex();
+        index.replaceArticle(1L, List.of("a"), List.of(TextSegment.from("滑动窗口切分")));
+        index.replaceArticle(2L, List.of("b"), List.of(TextSegment.from("滑动窗口限流")));
+
+        assertEquals(List.of("b"), index.search(2L, "滑动窗口", 3).stream().map(LexicalIndex.Hit::id).toList());
+
+        index.replaceArticle(2L, List.of("c"), List.of(TextSegment.from("令牌桶限流")));
+        assertEquals(List.of("a"), index.search(null, "滑动窗口", 3).stream().map(LexicalIndex.Hit::id).toList());
+
+        index.removeArticles(List.of(1L, 2L));
+        assertTrue(index.search(null, "限流", 3).isEmpty());
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,38 @@
+package com.xzf.blog.ai.lexical;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LexicalTokenizerTest {
+
+    @Test
+    void shouldSplitCjkIntoBigramsAndLatinIntoWords() {
+        assertEquals(List.of("向量", "量检", "检索", "milvus", "2", "3"), LexicalTokenizer.tokenize("向量检索Milvus 2.3"));
+    }
+
+    @Test
+    void shouldKeepSingleCjkCharacter() {
+        assertEquals(List.of("锁", "redis"), LexicalTokenizer.tokenize("锁，Redis！"));
+    }
+
+    @Test
+    void shouldNormalizeFullWidthCharacters() {
+        assertEquals(List.of("java", "21"), LexicalTokenizer.tokenize("ＪＡＶＡ　２１"));
+    }
+
+    @Test
+    void shouldDetectKeywordQueries() {
+        assertTrue(LexicalTokenizer.isKeywordQuery("ChatHistoryDO", 12));
+        assertTrue(LexicalTokenizer.isKeywordQuery("setAckIndex 的用法是什么", 12));
+        assertTrue(LexicalTokenizer.isKeywordQuery("\"滑动窗口\"", 12));
+        assertTrue(LexicalTokenizer.isKeywordQuery("布隆过滤器", 12));
+        assertFalse(LexicalTokenizer.isKeywordQuery("布隆过滤器是什么", 12));
+        assertFalse(LexicalTokenizer.isKeywordQuery("这篇文章主要讲了哪些缓存一致性的方案", 12));
+        assertFalse(LexicalTokenizer.isKeywordQuery(" ", 12));
+    }
+}
@@ -0,0 +1,63 @@
+package com.xzf.blog.ai.metrics;
+
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChatMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ChatMetrics chatMetrics = new ChatMetrics(registry);
+
+    @Test
+    void shouldTagStageOutcome() {
+        assertEquals("ok", chatMetrics.timeStage(ChatMetrics.PIPELINE_RAGAS, "generate", () -> "ok"));
+        assertThrows(IllegalStateException.class, () -> chatMetrics.timeStage(ChatMetrics.PIPELINE_RAGAS, "generate", () -> {
+            throw new IllegalStateException("模型不可用");
+        }));
+        chatMetrics.recordStage(ChatMetrics.PIPELINE_CHAT, "history", ChatMetrics.OUTCOME_TIMEOUT, TimeUnit.MILLISECONDS.toNanos(300));
+
+        assertEquals(1, registry.get("ai.pipeline.stage").tags("pipeline", "ragas", "stage", "generate", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("ai.pipeline.stage").tags("pipeline", "ragas", "stage", "generate", "outcome", "error").timer().count());
+        assertEquals(300, registry.get("ai.pipeline.stage").tags("stage", "history", "outcome", "timeout").timer().totalTime(TimeUnit.MILLISECONDS), 1e-6);
+    }
+
+    @Test
+    void shouldCountPromptAndCompletionTokens() {
+        chatMetrics.recordTokenUsage(ChatMetrics.PIPELINE_CHAT, new TokenUsage(120, 30));
+        chatMetrics.recordTokenUsage(ChatMetrics.PIPELINE_CHAT, new TokenUsage(80, 20));
+        chatMetrics.recordTokenUsage(ChatMetrics.PIPELINE_CHAT, null);
+
+        assertEquals(200, registry.get("ai.model.tokens").tags("pipeline", "chat", "type", "prompt").counter().count(), 1e-6);
+        assertEquals(50, registry.get("ai.model.tokens").tags("pipeline", "chat", "type", "completion").counter().count(), 1e-6);
+    }
+
+    @Test
+    void shouldRecordGenerationRate() {
+        chatMetrics.recordGenerationRate(50, TimeUnit.SECONDS.toNanos(2));
+        chatMetrics.recordGenerationRate(0, TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(1, registry.get("ai.chat.tokens.per.second").summary().count());
+        assertEquals(25, registry.get("ai.chat.tokens.per.second").summary().totalAmount(), 1e-6);
+    }
+
+    @Test
+    void shouldRecordRetrievalAndConsumeLag() {
+        chatMetrics.recordRetrievedSegments("keyword", 2);
+        chatMetrics.recordRetrievalScore("local", 0.85);
+        chatMetrics.recordConsumeLag("ai_chat_group_rag_publish", -5);
+
+        assertEquals(2, registry.get("ai.retrieval.segments").tag("path", "keyword").summary().totalAmount(), 1e-6);
+        assertEquals(0.85, registry.get("ai.retrieval.score").tag("source", "local").summary().max(), 1e-6);
+        // 时钟偏差导致的负延迟记为 0
+        assertEquals(0, registry.get("ai.mq.consume.lag").tag("consumerGroup", "ai_chat_group_rag_publish").timer().max(TimeUnit.MILLISECONDS), 1e-6);
+        assertNull(registry.find("ai.retrieval.segments").tag("path", "vector").summary());
+    }
+}
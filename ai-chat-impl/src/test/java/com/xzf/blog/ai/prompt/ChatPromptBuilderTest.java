@@ -0,0 +1,105 @@
+package com.xzf.blog.ai.prompt;
+
+import com.xzf.blog.ai.api.vo.req.ChatReq;
+import com.xzf.blog.ai.commons.enums.ChatType;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.model.ChatHistoryDO;
+import com.xzf.blog.framework.commons.util.JsonUtils;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChatPromptBuilderTest {
+
+    private final ChatPromptBuilder builder = new ChatPromptBuilder();
+
+    private static ChatHistoryDO user(String message) {
+        ChatReq req = ChatReq.builder().conversationKey("c1").articleId(1L).message(message).build();
+        return ChatHistoryDO.builder().id(1L).accountId(7L).conversationKey("c1").type(ChatType.USER_MESSAGE).content(JsonUtils.toJsonString(req)).build();
+    }
+
+    private static ChatHistoryDO ai(String content) {
+        return ChatHistoryDO.builder().id(2L).accountId(7L).conversationKey("c1").type(ChatType.AI_MESSAGE).content(content).build();
+    }
+
+    private static ChatModelProperties.Prompt config(int maxTokens, int reservedHistoryRounds) {
+        ChatModelProperties.Prompt config = new ChatModelProperties.Prompt();
+        config.setMaxTokens(maxTokens);
+        config.setReservedHistoryRounds(reservedHistoryRounds);
+        config.setMessageOverheadTokens(0);
+        return config;
+    }
+
+    @Test
+    void shouldMapHistoryToRolesWithPlainText() {
+        ChatPromptBuilder.ChatPrompt prompt = builder.build("系统", null, List.of(user("什么是RAG"), ai("检索增强生成")),
+                List.of("片段A", "片段B"), "怎么实现", config(3000, 1));
+
+        List<ChatMessage> expected = List.of(
+                new SystemMessage("系统\n[1] 片段A\n[2] 片段B\n"),
+                new UserMessage("什么是RAG"),
+                new AiMessage("检索增强生成"),
+                new UserMessage("怎么实现"));
+        assertEquals(expected, prompt.messages());
+        assertEquals(List.of("片段A", "片段B"), prompt.segments());
+        assertEquals(1, prompt.historyRounds());
+    }
+
+    @Test
+    void shouldKeepRecentRoundThenSegmentsThenOlderRounds() {
+        // 系统提示词与问题 4，每轮历史 8，每个编号片段 5
+        List<ChatHistoryDO> history = List.of(user("甲甲甲甲"), ai("乙乙乙乙"), user("丙丙丙丙"), ai("丁丁丁丁"));
+        List<String> segments = List.of("段段段段", "落落落落");
+
+        ChatPromptBuilder.ChatPrompt prompt = builder.build("系统", null, history, segments, "问题", config(24, 1));
+        assertEquals(segments, prompt.segments());
+        assertEquals(1, prompt.historyRounds());
+        assertEquals(new UserMessage("丙丙丙丙"), prompt.messages().get(1));
+        assertEquals(22, prompt.estimatedTokens());
+
+        prompt = builder.build("系统", null, history, segments, "问题", config(16, 1));
+        assertEquals(List.of(), prompt.segments());
+        assertEquals(1, prompt.historyRounds());
+
+        prompt = builder.build("系统", null, history, segments, "问题", config(40, 1));
+        assertEquals(2, prompt.historyRounds());
+        assertEquals(new UserMessage("甲甲甲甲"), prompt.messages().get(1));
+    }
+
+    @Test
+    void shouldPreferSegmentsWhenNoRoundReserved() {
+        List<ChatHistoryDO> history = List.of(user("甲甲甲甲"), ai("乙乙乙乙"), user("丙丙丙丙"), ai("丁丁丁丁"));
+
+        ChatPromptBuilder.ChatPrompt prompt = builder.build("系统", null, history, List.of("段段段段", "落落落落"), "问题", config(16, 0));
+
+        assertEquals(List.of("段段段段", "落落落落"), prompt.segments());
+        assertEquals(0, prompt.historyRounds());
+        assertEquals(2, prompt.messages().size());
+    }
+
+    @Test
+    void shouldAlwaysKeepSummary() {
+        // 摘要段 9，系统提示词与问题 4，剩余 8 只够放入最近一轮
+        List<ChatHistoryDO> history = List.of(user("甲甲甲甲"), ai("乙乙乙乙"), user("丙丙丙丙"), ai("丁丁丁丁"));
+
+        ChatPromptBuilder.ChatPrompt prompt = builder.build("系统", "摘要摘要", history, List.of("段段段段"), "问题", config(21, 1));
+
+        assertEquals(new SystemMessage("系统\n# 对话摘要\n摘要摘要\n"), prompt.messages().get(0));
+        assertEquals(List.of(), prompt.segments());
+        assertEquals(1, prompt.historyRounds());
+        assertEquals(21, prompt.estimatedTokens());
+    }
+
+    @Test
+    void shouldKeepPlainUserContent() {
+        ChatHistoryDO legacy = ChatHistoryDO.builder().type(ChatType.USER_MESSAGE).content("直接保存的问题").build();
+
+        assertEquals("直接保存的问题", ChatPromptBuilder.textOf(legacy));
+    }
+}
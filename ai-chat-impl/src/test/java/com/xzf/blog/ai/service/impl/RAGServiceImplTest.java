@@ -0,0 +1,29 @@
+package com.xzf.blog.ai.service.impl;
+
+import com.xzf.blog.ai.lexical.LexicalIndex;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RAGServiceImplTest {
+
+    @Test
+    void shouldFuseVectorAndLexicalResultsByReciprocalRank() {
+        List<EmbeddingMatch<TextSegment>> vector = List.of(
+                new EmbeddingMatch<>(0.9, "a", null, TextSegment.from("A")),
+                new EmbeddingMatch<>(0.8, "b", null, TextSegment.from("B")),
+                new EmbeddingMatch<>(0.7, "c", null, TextSegment.from("C")));
+        List<LexicalIndex.Hit> lexical = List.of(
+                new LexicalIndex.Hit("c", TextSegment.from("C"), 5.0),
+                new LexicalIndex.Hit("d", TextSegment.from("D"), 4.0));
+
+        List<TextSegment> fused = RAGServiceImpl.fuse(vector, lexical, 2, 60);
+
+        // c 同时出现在两路结果中排第一，a 为向量第一名排第二
+        assertEquals(List.of("C", "A"), fused.stream().map(TextSegment::text).toList());
+    }
+}
@@ -0,0 +1,205 @@
+package com.xzf.blog.ai.store;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.grpc.DescribeIndexResponse;
+import io.milvus.grpc.IndexState;
+import io.milvus.param.ConnectParam;
+import io.milvus.param.IndexType;
+import io.milvus.param.MetricType;
+import io.milvus.param.R;
+import io.milvus.param.collection.DropCollectionParam;
+import io.milvus.param.collection.FlushParam;
+import io.milvus.param.index.DescribeIndexParam;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 向量索引召回率与延迟基准
+ * 以 FLAT 检索结果为真值，统计各索引配置的 recall@k 以及 p50/p99 检索延迟
+ * 数据为随机单位向量，没有真实语料的聚类结构，召回率是偏保守的下限
+ * <p>
+ * 先通过 docs/docker-compose.yml 启动本地 Milvus，再执行：
+ * mvn -pl ai-chat-impl test -Dtest=AnnIndexBenchmarkTest -Dmilvus.benchmark=true
+ * 可选参数：milvus.host、milvus.port、bench.size、bench.dim、bench.queries、bench.k
+ */
+@EnabledIfSystemProperty(named = "milvus.benchmark", matches = "true")
+class AnnIndexBenchmarkTest {
+
+    private static final String COLLECTION_PREFIX = "ann_bench_";
+
+    private static final int SIZE = Integer.getInteger("bench.size", 20000);
+    private static final int DIM = Integer.getInteger("bench.dim", 2048);
+    private static final int QUERIES = Integer.getInteger("bench.queries", 200);
+    private static final int K = Integer.getInteger("bench.k", 10);
+    private static final int BATCH_SIZE = 500;
+
+    private static MilvusServiceClient client;
+
+    private static final List<String> collections = new ArrayList<>();
+
+    @BeforeAll
+    static void connect() {
+        client = new MilvusServiceClient(ConnectParam.newBuilder()
+                .withHost(System.getProperty("milvus.host", "localhost"))
+                .withPort(Integer.getInteger("milvus.port", 19530))
+                .withAuthorization("root", "Milvus")
+                .build());
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        for (String collection : collections) {
+            client.dropCollection(DropCollectionParam.newBuilder().withCollectionName(collection).build());
+        }
+        client.close();
+    }
+
+    @Test
+    void benchmarkIndexTypes() throws IOException {
+        Random random = new Random(42);
+        List<String> ids = new ArrayList<>(SIZE);
+        List<Embedding> corpus = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            ids.add(UUID.randomUUID().toString());
+            corpus.add(randomUnitVector(random));
+        }
+        List<Embedding> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(randomUnitVector(random));
+        }
+
+        Map<String, AnnIndexConfig> settings = new LinkedHashMap<>();
+        settings.put("FLAT", AnnIndexConfig.builder().type(IndexType.FLAT).build());
+        settings.put("IVF_FLAT(nlist=1024,nprobe=8)", AnnIndexConfig.builder().type(IndexType.IVF_FLAT).nlist(1024).nprobe(8).build());
+        settings.put("IVF_FLAT(nlist=1024,nprobe=32)", AnnIndexConfig.builder().type(IndexType.IVF_FLAT).nlist(1024).nprobe(32).build());
+        settings.put("IVF_SQ8(nlist=1024,nprobe=8)", AnnIndexConfig.builder().type(IndexType.IVF_SQ8).nlist(1024).nprobe(8).build());
+        settings.put("IVF_SQ8(nlist=1024,nprobe=32)", AnnIndexConfig.builder().type(IndexType.IVF_SQ8).nlist(1024).nprobe(32).build());
+        settings.put("HNSW(M=16,efC=200,ef=32)", AnnIndexConfig.builder().type(IndexType.HNSW).m(16).efConstruction(200).ef(32).build());
+        settings.put("HNSW(M=16,efC=200,ef=128)", AnnIndexConfig.builder().type(IndexType.HNSW).m(16).efConstruction(200).ef(128).build());
+
+        List<List<String>> groundTruth = null;
+        Set<IndexType> loaded = new HashSet<>();
+        StringBuilder report = new StringBuilder("setting,recall@" + K + ",p50_ms,p99_ms\n");
+        for (Map.Entry<String, AnnIndexConfig> setting : settings.entrySet()) {
+            AnnIndexConfig config = setting.getValue();
+            String collection = COLLECTION_PREFIX + config.getType().name().toLowerCase();
+            MilvusArticleEmbeddingStore store = MilvusArticleEmbeddingStore.builder()
+                    .milvusClient(client)
+                    .collectionName(collection)
+                    .dimension(DIM)
+                    .annIndex(config)
+                    .metricType(MetricType.COSINE)
+                    .consistencyLevel(ConsistencyLevelEnum.STRONG)
+                    .build();
+            // 同一索引类型只写入一次数据，不同检索参数复用同一集合
+            if (loaded.add(config.getType())) {
+                collections.add(collection);
+                load(store, collection, ids, corpus);
+            }
+
+            List<List<String>> results = new ArrayList<>(QUERIES);
+            long[] latencies = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                long start = System.nanoTime();
+                List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+                        .queryEmbedding(queries.get(i))
+                        .maxResults(K)
+                        .minScore(0.0)
+                        .build()).matches();
+                latencies[i] = System.nanoTime() - start;
+                results.add(matches.stream().map(EmbeddingMatch::embeddingId).toList());
+            }
+            if (groundTruth == null) {
+                groundTruth = results;
+            }
+
+            double recall = recall(groundTruth, results);
+            Arrays.sort(latencies);
+            double p50 = latencies[(int) (QUERIES * 0.50)] / 1_000_000.0;
+            double p99 = latencies[Math.min(QUERIES - 1, (int) (QUERIES * 0.99))] / 1_000_000.0;
+            report.append(String.format("\"%s\",%.4f,%.3f,%.3f%n", setting.getKey(), recall, p50, p99));
+        }
+
+        System.out.println(report);
+        Path output = Path.of("target", "ann-benchmark.csv");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, report);
+    }
+
+    private static void load(MilvusArticleEmbeddingStore store, String collection, List<String> ids, List<Embedding> corpus) {
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, ids.size());
+            List<TextSegment> segments = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                segments.add(TextSegment.from("segment-" + i));
+            }
+            store.addAll(ids.subList(from, to), corpus.subList(from, to), segments);
+        }
+        client.flush(FlushParam.newBuilder().addCollectionName(collection).build());
+        awaitIndex(collection);
+    }
+
+    private static void awaitIndex(String collection) {
+        for (int i = 0; i < 600; i++) {
+            R<DescribeIndexResponse> response = client.describeIndex(DescribeIndexParam.newBuilder()
+                    .withCollectionName(collection)
+                    .withIndexName("vector_index")
+                    .build());
+            if (response.getData() != null && response.getData().getIndexDescriptionsCount() > 0
+                    && response.getData().getIndexDescriptions(0).getState() == IndexState.Finished) {
+                return;
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        throw new IllegalStateException("等待索引构建超时: " + collection);
+    }
+
+    private static double recall(List<List<String>> groundTruth, List<List<String>> results) {
+        double total = 0;
+        for (int i = 0; i < groundTruth.size(); i++) {
+            Set<String> expected = new HashSet<>(groundTruth.get(i));
+            long hit = results.get(i).stream().filter(expected::contains).count();
+            total += expected.isEmpty() ? 1 : (double) hit / expected.size();
+        }
+        return total / groundTruth.size();
+    }
+
+    private static Embedding randomUnitVector(Random random) {
+        float[] vector = new float[DIM];
+        double norm = 0;
+        for (int i = 0; i < DIM; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < DIM; i++) {
+            vector[i] *= scale;
+        }
+        return Embedding.from(vector);
+    }
+}
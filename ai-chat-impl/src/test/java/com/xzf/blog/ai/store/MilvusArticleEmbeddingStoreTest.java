@@ -0,0 +1,53 @@
+package com.xzf.blog.ai.store;
+
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Not;
+import io.milvus.param.IndexType;
+import io.milvus.param.MetricType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MilvusArticleEmbeddingStoreTest {
+
+    @Test
+    void shouldPushArticleIdFilterDownToScalarField() {
+        assertEquals("article_id == 21", MilvusArticleEmbeddingStore.toExpression(new IsEqualTo("articleId", 21L)));
+    }
+
+    @Test
+    void shouldMapOtherKeysToMetadataJsonField() {
+        String expression = MilvusArticleEmbeddingStore.toExpression(
+                new And(new IsEqualTo("articleId", 21L), new Not(new IsIn("title", List.of("a\"b")))));
+
+        assertEquals("(article_id == 21 and not (metadata[\"title\"] in [\"a\\\"b\"]))", expression);
+    }
+
+    @Test
+    void shouldCompareAllIndexBuildParams() {
+        AnnIndexConfig hnsw = AnnIndexConfig.builder().type(IndexType.HNSW).m(16).efConstruction(200).build();
+        Map<String, String> current = Map.of("index_type", "HNSW", "metric_type", "COSINE",
+                "params", "{\"M\":\"16\",\"efConstruction\":200}");
+
+        assertTrue(MilvusArticleEmbeddingStore.indexMatches(current, hnsw, MetricType.COSINE));
+        assertFalse(MilvusArticleEmbeddingStore.indexMatches(current,
+                AnnIndexConfig.builder().type(IndexType.HNSW).m(32).efConstruction(200).build(), MetricType.COSINE));
+        assertFalse(MilvusArticleEmbeddingStore.indexMatches(current, hnsw, MetricType.IP));
+        assertFalse(MilvusArticleEmbeddingStore.indexMatches(current, AnnIndexConfig.builder().type(IndexType.FLAT).build(), MetricType.COSINE));
+    }
+
+    @Test
+    void shouldReadBuildParamsStoredAsSeparateKeys() {
+        AnnIndexConfig ivf = AnnIndexConfig.builder().type(IndexType.IVF_FLAT).nlist(1024).build();
+
+        assertTrue(MilvusArticleEmbeddingStore.indexMatches(Map.of("index_type", "IVF_FLAT", "nlist", "1024"), ivf, MetricType.COSINE));
+        assertFalse(MilvusArticleEmbeddingStore.indexMatches(Map.of("index_type", "IVF_FLAT", "nlist", "2048"), ivf, MetricType.COSINE));
+    }
+}
@@ -0,0 +1,26 @@
+package com.xzf.blog.ai.strategy;
+
+import com.xzf.blog.ai.commons.constant.SplitStrategyConstants;
+import com.xzf.blog.ai.util.SentenceWindowSplitter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SentenceWindowSplitStrategyTest {
+
+    private final SentenceWindowSplitStrategy strategy = new SentenceWindowSplitStrategy();
+
+    @Test
+    void shouldReturnExpectedStrategyName() {
+        assertEquals(SplitStrategyConstants.SENTENCE_WINDOW, strategy.getName());
+    }
+
+    @Test
+    void shouldDelegateSplitToSentenceWindowSplitter() {
+        String article = "alpha beta gamma";
+
+        assertArrayEquals(SentenceWindowSplitter.split(article), strategy.split(article));
+        assertArrayEquals(strategy.split(article), strategy.splitToStream(article).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,137 @@
+package com.xzf.blog.ai.stream;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenFrameAggregatorTest {
+
+    private static final long NEVER = 60_000;
+
+    @Test
+    void shouldEmitFirstTokenImmediatelyAndCoalesceTheRest() {
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        TokenFrameAggregator frames = subscribe(recorder, 8, NEVER);
+
+        frames.next("你");
+        assertEquals(List.of("你"), recorder.frames);
+
+        frames.next("好");
+        frames.next("世");
+        assertEquals(List.of("你"), recorder.frames);
+
+        // 累计 9 字节，超过 8 字节上限
+        frames.next("界");
+        assertEquals(List.of("你", "好世界"), recorder.frames);
+
+        frames.next("!");
+        frames.complete();
+        assertEquals(List.of("你", "好世界", "!"), recorder.frames);
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    void shouldFlushPartialFrameAfterDelay() throws InterruptedException {
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        TokenFrameAggregator frames = subscribe(recorder, 1024, 20);
+
+        frames.next("a");
+        frames.next("b");
+        frames.next("c");
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (recorder.frames.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(List.of("a", "bc"), recorder.frames);
+    }
+
+    @Test
+    void shouldHoldTokensUntilDownstreamRequests() {
+        Recorder recorder = new Recorder(1);
+        TokenFrameAggregator frames = subscribe(recorder, 1, NEVER);
+
+        frames.next("a");
+        frames.next("b");
+        frames.next("c");
+        frames.complete();
+        assertEquals(List.of("a"), recorder.frames);
+
+        // 没有请求期间的 token 合并为一帧
+        recorder.request(1);
+        assertEquals(List.of("a", "bc"), recorder.frames);
+        assertTrue(recorder.completed);
+        assertEquals(2, frames.getFrameCount());
+    }
+
+    @Test
+    void shouldEmitRemainingContentBeforeError() {
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        TokenFrameAggregator frames = subscribe(recorder, 1024, NEVER);
+
+        frames.next("a");
+        frames.next("b");
+        frames.error(new IllegalStateException("boom"));
+
+        assertEquals(List.of("a", "b"), recorder.frames);
+        assertEquals("boom", recorder.error.getMessage());
+    }
+
+    @Test
+    void shouldCountUtf8Bytes() {
+        assertEquals(1, TokenFrameAggregator.utf8Length("a"));
+        assertEquals(3, TokenFrameAggregator.utf8Length("你"));
+        assertEquals(4, TokenFrameAggregator.utf8Length("😀"));
+    }
+
+    private static TokenFrameAggregator subscribe(Recorder recorder, int maxFrameBytes, long maxDelayMillis) {
+        AtomicReference<TokenFrameAggregator> frames = new AtomicReference<>();
+        Flux.<String>create(sink -> frames.set(new TokenFrameAggregator(sink, maxFrameBytes, maxDelayMillis, Schedulers.single())))
+                .subscribe(recorder);
+        return frames.get();
+    }
+
+    private static class Recorder extends BaseSubscriber<String> {
+
+        private final long initialRequest;
+
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+
+        private volatile boolean completed;
+
+        private volatile Throwable error;
+
+        private Recorder(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(initialRequest);
+        }
+
+        @Override
+        protected void hookOnNext(String value) {
+            frames.add(value);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.xzf.blog.ai.summary;
+
+import com.xzf.blog.ai.commons.enums.ChatType;
+import com.xzf.blog.ai.config.ChatModelProperties;
+import com.xzf.blog.ai.model.ChatHistoryDO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversationSummarizerTest {
+
+    private static ChatHistoryDO message(ChatType type, String content) {
+        return ChatHistoryDO.builder().type(type).content(content).build();
+    }
+
+    private static final List<ChatHistoryDO> HISTORY = List.of(
+            message(ChatType.USER_MESSAGE, "q1"), message(ChatType.AI_MESSAGE, "a1"),
+            message(ChatType.USER_MESSAGE, "q2"), message(ChatType.AI_MESSAGE, "a2"),
+            message(ChatType.USER_MESSAGE, "q3"), message(ChatType.AI_MESSAGE, "a3"));
+
+    @Test
+    void shouldDropRoundsCoveredBySummary() {
+        // 本轮是第 6 轮，前 3 轮已摘要，窗口中只保留第 4、5 轮
+        ConversationSummarizer.Summary summary = new ConversationSummarizer.Summary("摘要", 3, 6);
+
+        assertEquals(HISTORY.subList(2, 6), summary.uncovered(HISTORY));
+    }
+
+    @Test
+    void shouldKeepWindowWithoutSummary() {
+        assertEquals(HISTORY, ConversationSummarizer.Summary.empty().uncovered(HISTORY));
+        assertEquals(HISTORY, new ConversationSummarizer.Summary("", 3, 6).uncovered(HISTORY));
+    }
+
+    @Test
+    void shouldKeepWholeRoundsWhenWindowStartsWithAnswer() {
+        assertEquals(HISTORY.subList(4, 6), ConversationSummarizer.lastRounds(HISTORY.subList(1, 6), 1));
+        assertEquals(HISTORY.subList(1, 6), ConversationSummarizer.lastRounds(HISTORY.subList(1, 6), 5));
+        assertEquals(List.of(), ConversationSummarizer.lastRounds(HISTORY, 0));
+    }
+
+    @Test
+    void shouldFoldFromOldestUncoveredRoundWithoutGaps() {
+        ChatModelProperties.Summary config = new ChatModelProperties.Summary();
+        config.setKeepRounds(2);
+        config.setTriggerRounds(2);
+        config.setMaxFoldRounds(8);
+
+        // 积压 20 轮时分批合并，已摘要轮数逐次推进，不会跳过中间的轮次
+        long covered = 0;
+        List<Integer> folds = new ArrayList<>();
+        for (int fold; (fold = ConversationSummarizer.foldRounds(20, covered, config)) > 0; covered += fold) {
+            folds.add(fold);
+        }
+
+        assertEquals(List.of(8, 8, 2), folds);
+        assertEquals(18, covered);
+    }
+
+    @Test
+    void shouldGroupMessagesIntoRounds() {
+        List<List<ChatHistoryDO>> rounds = ConversationSummarizer.toRounds(HISTORY.subList(1, 5));
+
+        assertEquals(List.of(HISTORY.subList(2, 4), HISTORY.subList(4, 5)), rounds);
+    }
+
+    @Test
+    void shouldTriggerCompactionWhenUnsummarizedRoundsExceedThreshold() {
+        ChatModelProperties.Summary config = new ChatModelProperties.Summary();
+        config.setKeepRounds(2);
+        config.setTriggerRounds(2);
+
+        assertFalse(new ConversationSummarizer.Summary("", 0, 3).needsCompaction(config));
+        assertTrue(new ConversationSummarizer.Summary("", 0, 4).needsCompaction(config));
+        assertFalse(new ConversationSummarizer.Summary("摘要", 2, 5).needsCompaction(config));
+        assertFalse(ConversationSummarizer.Summary.empty().needsCompaction(config));
+    }
+}
@@ -0,0 +1,29 @@
+package com.xzf.blog.ai.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistoryCursorUtilTest {
+
+    @Test
+    void shouldRoundTripLastId() {
+        assertEquals(1893456789012345678L, HistoryCursorUtil.decode(HistoryCursorUtil.encode(1893456789012345678L)));
+        assertEquals(1L, HistoryCursorUtil.decode(HistoryCursorUtil.encode(1L)));
+    }
+
+    @Test
+    void shouldStartFromLatestWhenCursorIsBlank() {
+        assertNull(HistoryCursorUtil.decode(null));
+        assertNull(HistoryCursorUtil.decode(" "));
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> HistoryCursorUtil.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCursorUtil.decode("MTIz"));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCursorUtil.decode(HistoryCursorUtil.encode(1L).substring(0, 3)));
+    }
+}
@@ -0,0 +1,45 @@
+package com.xzf.blog.ai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SegmentIdUtilTest {
+
+    @Test
+    void shouldGenerateStableIdForSameSegment() {
+        String id = SegmentIdUtil.segmentId(21L, "文章标题:a,文章片段:b", 0);
+
+        assertEquals(id, SegmentIdUtil.segmentId(21L, "文章标题:a,文章片段:b", 0));
+        assertEquals(36, id.length());
+    }
+
+    @Test
+    void shouldChangeIdWhenArticleOccurrenceOrContentChanges() {
+        String id = SegmentIdUtil.segmentId(21L, "content", 0);
+
+        assertNotEquals(id, SegmentIdUtil.segmentId(22L, "content", 0));
+        assertNotEquals(id, SegmentIdUtil.segmentId(21L, "content", 1));
+        assertNotEquals(id, SegmentIdUtil.segmentId(21L, "content!", 0));
+    }
+
+    @Test
+    void shouldKeepLaterIdsWhenParagraphInsertedAtTop() {
+        List<String> before = SegmentIdUtil.segmentIds(21L, List.of("a", "b", "c"));
+        List<String> after = SegmentIdUtil.segmentIds(21L, List.of("new", "a", "b", "c"));
+
+        assertEquals(before, after.subList(1, 4));
+    }
+
+    @Test
+    void shouldNumberDuplicateSegmentsByOccurrence() {
+        List<String> ids = SegmentIdUtil.segmentIds(21L, List.of("a", "b", "a"));
+
+        assertEquals(SegmentIdUtil.segmentId(21L, "a", 0), ids.get(0));
+        assertEquals(SegmentIdUtil.segmentId(21L, "a", 1), ids.get(2));
+        assertNotEquals(ids.get(0), ids.get(2));
+    }
+}
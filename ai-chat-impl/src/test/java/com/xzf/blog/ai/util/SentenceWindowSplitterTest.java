@@ -0,0 +1,93 @@
+package com.xzf.blog.ai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SentenceWindowSplitterTest {
+
+    @Test
+    void shouldReturnEmptyArrayForNullOrBlankText() {
+        assertEquals(0, SentenceWindowSplitter.split(null).length);
+        assertEquals(0, SentenceWindowSplitter.split(" \n\t ").length);
+    }
+
+    @Test
+    void shouldNormalizeWhitespaceInSinglePass() {
+        String[] result = SentenceWindowSplitter.stream("  alpha \n\n beta\tgamma  ", 50, 10, 0).toArray(String[]::new);
+
+        assertArrayEquals(new String[]{"alpha beta gamma"}, result);
+    }
+
+    @Test
+    void shouldMatchFixedWindowsWhenToleranceIsZero() {
+        String[] result = SentenceWindowSplitter.stream("abcdefghij", 4, 3, 0).toArray(String[]::new);
+
+        assertArrayEquals(SlidingWindowUtil.split("abcdefghij", 4, 3), result);
+    }
+
+    @Test
+    void shouldSnapWindowEdgesToSentenceTerminators() {
+        String text = "第一句话在这里结束。第二句话也在这里结束。第三句话同样在这里结束。";
+
+        String[] result = SentenceWindowSplitter.stream(text, 12, 10, 3).toArray(String[]::new);
+
+        assertArrayEquals(new String[]{"第一句话在这里结束。", "第二句话也在这里结束。", "第三句话同样在这里结束。"}, result);
+    }
+
+    @Test
+    void shouldKeepClosingQuotesWithTheSentence() {
+        String text = "他说：“走吧。”然后大家出发了。";
+
+        String[] result = SentenceWindowSplitter.stream(text, 8, 8, 3).toArray(String[]::new);
+
+        assertEquals("他说：“走吧。”", result[0]);
+    }
+
+    @Test
+    void shouldNotSnapToDecimalPoints() {
+        String[] result = SentenceWindowSplitter.stream("Pi is 3.14 today", 7, 7, 2).toArray(String[]::new);
+
+        assertEquals("Pi is 3", result[0]);
+    }
+
+    @Test
+    void shouldProduceSameWindowsFromReaderAndCharSequence() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("Sentence number ").append(i).append(" ends here. ");
+        }
+
+        String[] fromText = SentenceWindowSplitter.stream(text, 400, 300, 50).toArray(String[]::new);
+        String[] fromReader = SentenceWindowSplitter.stream(new StringReader(text.toString()), 400, 300, 50).toArray(String[]::new);
+
+        assertArrayEquals(fromText, fromReader);
+        for (String window : fromText) {
+            assertTrue(window.length() <= 450);
+            assertTrue(window.endsWith("."), window);
+        }
+    }
+
+    @Test
+    void shouldIterateLazily() {
+        Iterator<String> iterator = SentenceWindowSplitter.iterator("abcdefghij", 4, 3, 0);
+
+        assertEquals("abcd", iterator.next());
+        assertEquals("defg", iterator.next());
+        assertEquals("ghij", iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> SentenceWindowSplitter.iterator("abc", 0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> SentenceWindowSplitter.iterator("abc", 4, 3, 3));
+    }
+}
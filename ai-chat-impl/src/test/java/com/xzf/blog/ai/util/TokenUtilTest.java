@@ -0,0 +1,39 @@
+package com.xzf.blog.ai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenUtilTest {
+
+    @Test
+    void shouldCountCjkCharactersAsOneTokenEach() {
+        assertEquals(6, TokenUtil.estimate("你好，世界。"));
+    }
+
+    @Test
+    void shouldCountOtherCharactersByFour() {
+        assertEquals(3, TokenUtil.estimate("hello world"));
+        assertEquals(0, TokenUtil.estimate(" \n\t"));
+        assertEquals(0, TokenUtil.estimate(null));
+    }
+
+    @Test
+    void shouldPackPiecesUpToLimit() {
+        List<String> chunks = TokenUtil.pack(Stream.of("一二三", "四五", "", "六七八九", "十"), 5);
+
+        assertEquals(List.of("一二三\n四五", "六七八九\n十"), chunks);
+    }
+
+    @Test
+    void shouldHardSplitOversizedPiece() {
+        List<String> chunks = TokenUtil.pack(Stream.of("甲乙", "一二三四五六七", "丙"), 3);
+
+        assertEquals(List.of("甲乙", "一二三", "四五六", "七", "丙"), chunks);
+        chunks.forEach(chunk -> assertTrue(TokenUtil.estimate(chunk) <= 3));
+    }
+}
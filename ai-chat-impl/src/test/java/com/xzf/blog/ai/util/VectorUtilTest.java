@@ -0,0 +1,40 @@
+package com.xzf.blog.ai.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VectorUtilTest {
+
+    @Test
+    void shouldRoundTripPackedFloatBytes() {
+        float[] vector = {0.1f, -2.5f, 3.25f, Float.MIN_VALUE};
+
+        byte[] bytes = VectorUtil.toBytes(vector);
+
+        assertEquals(vector.length * Float.BYTES, bytes.length);
+        assertArrayEquals(vector, VectorUtil.fromBytes(bytes));
+    }
+
+    @Test
+    void shouldRejectMalformedBytes() {
+        assertNull(VectorUtil.fromBytes(null));
+        assertNull(VectorUtil.fromBytes(new byte[0]));
+        assertNull(VectorUtil.fromBytes(new byte[5]));
+    }
+
+    @Test
+    void shouldComputeCosineSimilarity() {
+        assertEquals(1.0, VectorUtil.cosine(new float[]{1f, 2f}, new float[]{2f, 4f}), 1e-6);
+        assertEquals(0.0, VectorUtil.cosine(new float[]{1f, 0f}, new float[]{0f, 3f}), 1e-6);
+        assertEquals(-1.0, VectorUtil.cosine(new float[]{1f, 1f}, new float[]{-1f, -1f}), 1e-6);
+    }
+
+    @Test
+    void shouldReturnZeroCosineForIncompatibleVectors() {
+        assertEquals(0.0, VectorUtil.cosine(new float[]{1f}, new float[]{1f, 1f}));
+        assertEquals(0.0, VectorUtil.cosine(new float[]{0f, 0f}, new float[]{1f, 1f}));
+    }
+}
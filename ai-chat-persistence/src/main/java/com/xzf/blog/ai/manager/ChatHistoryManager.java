@@ -4,29 +4,78 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.xzf.blog.ai.commons.enums.ChatType;
 import com.xzf.blog.ai.mapper.ChatHistoryMapper;
 import com.xzf.blog.ai.model.ChatHistoryDO;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 @Component
 public class ChatHistoryManager extends ServiceImpl<ChatHistoryMapper, ChatHistoryDO> {
 
+    /**
+     * 已完成的对话轮次，一轮包含一问一答两条记录，只统计用户提问
+     */
     public long getRound(Long userId, String conversationKey) {
         LambdaQueryWrapper<ChatHistoryDO> queryWrapper = new LambdaQueryWrapper<ChatHistoryDO>()
                 .eq(ChatHistoryDO::getAccountId, userId)
-                .eq(ChatHistoryDO::getConversationKey, conversationKey);
+                .eq(ChatHistoryDO::getConversationKey, conversationKey)
+                .eq(ChatHistoryDO::getType, ChatType.USER_MESSAGE);
         return count(queryWrapper);
     }
 
-    public List<ChatHistoryDO> getHistory(Long userId, String conversationKey, int historyRound) {
+    /**
+     * 最近 limit 条消息，按时间正序返回
+     */
+    public List<ChatHistoryDO> getHistory(Long userId, String conversationKey, int limit) {
+        LambdaQueryWrapper<ChatHistoryDO> queryWrapper = new LambdaQueryWrapper<ChatHistoryDO>()
+                .eq(ChatHistoryDO::getAccountId, userId)
+                .eq(ChatHistoryDO::getConversationKey, conversationKey)
+                .orderByDesc(ChatHistoryDO::getId)
+                .last("limit " + limit);
+        List<ChatHistoryDO> history = list(queryWrapper);
+        Collections.reverse(history);
+        return history;
+    }
+
+    /**
+     * 跳过最早的 skipRounds 轮后按时间正序返回消息，最多 limit 条
+     */
+    public List<ChatHistoryDO> getHistoryAfterRounds(Long userId, String conversationKey, long skipRounds, int limit) {
+        ChatHistoryDO first = getOne(new LambdaQueryWrapper<ChatHistoryDO>()
+                .select(ChatHistoryDO::getId)
+                .eq(ChatHistoryDO::getAccountId, userId)
+                .eq(ChatHistoryDO::getConversationKey, conversationKey)
+                .eq(ChatHistoryDO::getType, ChatType.USER_MESSAGE)
+                .orderByAsc(ChatHistoryDO::getId)
+                .last("limit " + skipRounds + ", 1"), false);
+        if (first == null) {
+            return Collections.emptyList();
+        }
+        return list(new LambdaQueryWrapper<ChatHistoryDO>()
+                .eq(ChatHistoryDO::getAccountId, userId)
+                .eq(ChatHistoryDO::getConversationKey, conversationKey)
+                .ge(ChatHistoryDO::getId, first.getId())
+                .orderByAsc(ChatHistoryDO::getId)
+                .last("limit " + limit));
+    }
+
+    /**
+     * 游标分页：id 小于 beforeId 的最近 limit 条消息，按 id 倒序返回
+     * 走 (account_id, conversation_key, id) 索引定位，不查询总数，耗时与翻页深度无关
+     *
+     * @param beforeId 上一页最后一条消息的 id，为空时从最新的消息开始
+     */
+    public List<ChatHistoryDO> scrollHistory(Long userId, String conversationKey, Long beforeId, int limit) {
         LambdaQueryWrapper<ChatHistoryDO> queryWrapper = new LambdaQueryWrapper<ChatHistoryDO>()
                 .eq(ChatHistoryDO::getAccountId, userId)
                 .eq(ChatHistoryDO::getConversationKey, conversationKey)
+                .lt(beforeId != null, ChatHistoryDO::getId, beforeId)
                 .orderByDesc(ChatHistoryDO::getId)
-                .last("limit " + historyRound);
+                .last("limit " + limit);
         return list(queryWrapper);
     }
 
@@ -37,7 +86,8 @@ public class ChatHistoryManager extends ServiceImpl<ChatHistoryMapper, ChatHisto
         LambdaQueryWrapper<ChatHistoryDO> wrapper = Wrappers.<ChatHistoryDO>lambdaQuery()
                 .eq(ChatHistoryDO::getAccountId, userId)
                 .eq(ChatHistoryDO::getConversationKey, conversationKey)
-                .orderByDesc(ChatHistoryDO::getCreateTime); // 按创建时间倒叙
+                // 按 id 倒序，同一轮的提问与回答创建时间可能相同，id 按写入顺序递增
+                .orderByDesc(ChatHistoryDO::getId);
         return page(page, wrapper);
     }
 }
@@ -0,0 +1,3 @@
+-- 对话历史游标分页（/chat/history/scroll）按 account_id、conversation_key 定位后沿 id 倒序扫描，
+-- 翻页条件为 id < 上一页最后一条的 id，耗时与翻页深度无关
+ALTER TABLE chat_history ADD INDEX idx_account_conversation_id (account_id, conversation_key, id);